@@ -0,0 +1,47 @@
+package com.lostfound.config;
+
+import java.util.Locale;
+
+/**
+ * Accept-Encoding matching (RFC 9110 12.5.3) for responses compressed ahead of time: a coding is
+ * acceptable when listed with a non-zero q-value, or covered by "*" without being listed itself.
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    public static boolean accepts(String header, String coding) {
+        if (header == null) {
+            return false;
+        }
+        Double wildcard = null;
+        for (String part : header.toLowerCase(Locale.ROOT).split(",")) {
+            String[] params = part.split(";");
+            String name = params[0].trim();
+            double q = qValue(params);
+            if (name.equals(coding) || ("gzip".equals(coding) && name.equals("x-gzip"))) {
+                return q > 0;
+            }
+            if (name.equals("*")) {
+                wildcard = q;
+            }
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    // 1 when absent; 0 when malformed, so a garbled header never gets a compressed body
+    private static double qValue(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.lostfound.config;
+
+import com.lostfound.model.Role;
+import com.lostfound.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal for an authenticated request, built once by JwtAuthenticationFilter (through
+ * UserDetailsServiceImpl) and handed to controllers by AuthenticatedUserArgumentResolver.
+ * Carries what handlers need to know about the caller, so they don't look the user up again;
+ * load the entity only when it is going to be modified. Holds no credentials: passwords are
+ * checked by AuthService.login against the stored hash, never through this object.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final Role role;
+    private final boolean passwordSet;
+
+    public AuthenticatedUser(User user) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.role = user.getRole() != null ? user.getRole() : Role.USER;
+        this.passwordSet = user.getPassword() != null && !user.getPassword().isEmpty();
+    }
+
+    public Long getId() { return id; }
+    public String getEmail() { return email; }
+    public Role getRole() { return role; }
+
+    /**
+     * False for OAuth users, who signed up without a password.
+     */
+    public boolean isPasswordSet() { return passwordSet; }
+
+    @Override
+    public String getUsername() { return email; }
+
+    // Required by UserDetails; the hash deliberately stays out of the security context
+    @Override
+    public String getPassword() { return null; }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public boolean isAccountNonExpired() { return true; }
+
+    @Override
+    public boolean isAccountNonLocked() { return true; }
+
+    @Override
+    public boolean isCredentialsNonExpired() { return true; }
+
+    @Override
+    public boolean isEnabled() { return true; }
+}
@@ -0,0 +1,40 @@
+package com.lostfound.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Read-through caches backed by Caffeine (see spring.cache.* in application.properties).
+ * Callers only use the Spring Cache abstraction, so a distributed provider can be swapped
+ * in by changing spring.cache.type without touching the services.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Item by id, as returned by GET /api/items/{id}
+    public static final String ITEMS = "items";
+
+    // ProfileDTO by email
+    public static final String PROFILES = "profiles";
+
+    // AuthenticatedUser (id, email, role; no credentials) by email
+    public static final String USERS = "users";
+
+    // Eviction is per node: a short TTL bounds how long another node keeps a changed role or a deleted user
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> usersCacheCustomizer(Environment environment) {
+        return cacheManager -> cacheManager.registerCustomCache(USERS, Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(Duration.ofSeconds(environment.getProperty("cache.users.ttl-seconds", Long.class, 60L)))
+                .recordStats()
+                .build());
+    }
+}
@@ -0,0 +1,116 @@
+package com.lostfound.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Without a replica URL none of the beans below exist and Boot creates the single pool as usual
+    private static final String REPLICA_CONFIGURED = "'${db.replica.url:}' != ''";
+
+    // Static: post-processors are created before other beans, and this one needs nothing but the Environment
+    @Bean
+    public static BeanPostProcessor connectionLimiter(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource
+                        || !environment.getProperty("db.limit.enabled", Boolean.class, true)) {
+                    return bean;
+                }
+                // One limiter per pool, in front of the pool itself: a permit is exactly one pooled connection,
+                // and a burst of replica reads can't use up permits that writes on the primary need
+                boolean replica = !environment.getProperty("db.replica.url", "").isEmpty();
+                int poolSize;
+                String maxConnectionsProperty;
+                if (replica ? "primaryDataSource".equals(beanName) : "dataSource".equals(beanName)) {
+                    poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                    maxConnectionsProperty = "db.limit.max-connections";
+                } else if (replica && "replicaDataSource".equals(beanName)) {
+                    poolSize = environment.getProperty("db.replica.hikari.maximum-pool-size", Integer.class, 10);
+                    maxConnectionsProperty = "db.limit.replica-max-connections";
+                } else {
+                    return bean;
+                }
+                return new ConnectionLimitingDataSource(dataSource,
+                        environment.getProperty(maxConnectionsProperty, Integer.class, poolSize),
+                        environment.getProperty("db.limit.max-waiting", Integer.class, 200),
+                        environment.getProperty("db.limit.acquire-timeout-ms", Long.class, 5000L));
+            }
+        };
+    }
+
+    // Writes, read-write transactions and Flyway migrations
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // Credentials default to the primary's; pool settings are bound from db.replica.hikari.*
+    @Bean
+    @ConfigurationProperties("db.replica.hikari")
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public HikariDataSource replicaDataSource(DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(environment.getProperty("db.replica.url"))
+                .username(environment.getProperty("db.replica.username", properties.determineUsername()))
+                .password(environment.getProperty("db.replica.password", properties.determinePassword()))
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                             @Qualifier("replicaDataSource") DataSource replica,
+                                                             Environment environment) {
+        return new ReplicaRoutingDataSource(primary, replica,
+                environment.getProperty("db.replica.read-your-writes-ms", Long.class, 5000L),
+                environment.getProperty("db.replica.max-lag-ms", Long.class, 5000L),
+                environment.getProperty("db.replica.lag-query", ""));
+    }
+
+    // Lazy: the routing decision needs the transaction's read-only flag, which is set after the connection is requested
+    @Bean
+    @Primary
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    // Spring's default holds the first connection until the EntityManager closes, which with open-in-view
+    // is the end of the request: a write after a read-only lookup would reuse the replica connection.
+    // Releasing it after each transaction lets every transaction route on its own read-only flag.
+    @Bean
+    @ConditionalOnExpression(REPLICA_CONFIGURED)
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -6,7 +6,10 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.hibernate.LazyInitializationException;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -51,10 +54,29 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Map<String, String>> handleMaxUploadSize(MaxUploadSizeExceededException ex) {
         Map<String, String> error = new HashMap<>();
         error.put("error", "File too large");
-        error.put("message", "Maximum file size is 5MB");
+        // -1 when the container didn't say which limit was hit
+        error.put("message", ex.getMaxUploadSize() > 0
+                ? "Maximum upload size is " + ex.getMaxUploadSize() / (1024 * 1024) + "MB"
+                : "Upload exceeds the size limit");
         return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(error);
     }
 
+    // Otherwise the catch-all below would turn e.g. a 503 from ImageIngestService into a 500
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> handleResponseStatus(ResponseStatusException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getReason() != null ? ex.getReason() : ex.getStatusCode().toString());
+        return ResponseEntity.status(ex.getStatusCode()).body(error);
+    }
+
+    // No connection available (pool exhausted or ConnectionLimitingDataSource shed the request): retryable
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Map<String, String>> handleDatabaseBusy(Exception ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service busy, please retry");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(error);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException ex) {
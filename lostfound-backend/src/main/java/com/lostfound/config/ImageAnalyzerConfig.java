@@ -0,0 +1,38 @@
+package com.lostfound.config;
+
+import com.lostfound.service.CloudVisionAnalyzer;
+import com.lostfound.service.ImageAnalyzer;
+import com.lostfound.service.LocalImageAnalyzer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration
+public class ImageAnalyzerConfig {
+
+    // Cloud Vision only when an API key is configured
+    @Bean
+    @ConditionalOnExpression("!'${google.cloud.vision.api-key:}'.isEmpty()")
+    public ImageAnalyzer cloudVisionAnalyzer(RestTemplate visionRestTemplate,
+                                             CircuitBreaker visionCircuitBreaker,
+                                             Bulkhead visionBulkhead,
+                                             @Value("${google.cloud.vision.endpoint:https://vision.googleapis.com}") String endpoint,
+                                             @Value("${google.cloud.vision.api-key}") String apiKey) {
+        return new CloudVisionAnalyzer(visionRestTemplate, visionCircuitBreaker, visionBulkhead, endpoint, apiKey);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ImageAnalyzer.class)
+    public ImageAnalyzer localImageAnalyzer(@Value("${vision.local.model-path:}") String modelPath,
+                                            @Value("${vision.local.labels-path:}") String labelsPath,
+                                            @Value("${vision.local.threads:2}") int threads,
+                                            @Value("${vision.local.queue-capacity:50}") int queueCapacity,
+                                            @Value("${vision.local.timeout-ms:5000}") long timeoutMs) {
+        return new LocalImageAnalyzer(modelPath, labelsPath, threads, queueCapacity, timeoutMs);
+    }
+}
@@ -0,0 +1,73 @@
+package com.lostfound.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Writes large list responses element by element straight to the response stream,
+ * so the full JSON array is never materialised as one String or byte[].
+ */
+@Component
+public class JsonStreamWriter {
+
+    // Flush in chunks rather than per element so gzip still gets decent blocks to compress
+    private static final int FLUSH_EVERY = 100;
+
+    /**
+     * Elements that can only be visited inside a call, e.g. rows of a cursor held open by a transaction.
+     */
+    @FunctionalInterface
+    public interface Source {
+        void forEach(Consumer<Object> sink);
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter elementWriter;
+
+    public JsonStreamWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.elementWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public StreamingResponseBody array(Iterable<?> elements) {
+        return array(sink -> elements.forEach(sink));
+    }
+
+    /**
+     * Writes each element as the source produces it; runs when the response body is written,
+     * so the source is only opened then (on the async request thread).
+     */
+    public StreamingResponseBody array(Source source) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                AtomicInteger written = new AtomicInteger();
+                try {
+                    source.forEach(element -> {
+                        try {
+                            elementWriter.writeValue(generator, element);
+                            if (written.incrementAndGet() % FLUSH_EVERY == 0) {
+                                generator.flush();
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+}
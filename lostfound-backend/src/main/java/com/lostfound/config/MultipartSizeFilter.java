@@ -0,0 +1,51 @@
+package com.lostfound.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * The container's multipart limits (spring.servlet.multipart.*) apply to every endpoint, and are
+ * sized for bulk import, whose images zip is a single part. Every other multipart request is held
+ * to uploads.max-request-size here, from its Content-Length, before the body is read or parsed.
+ */
+@Component
+public class MultipartSizeFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LARGE_UPLOAD_PATHS = Set.of("/api/items/import");
+
+    private final long maxRequestBytes;
+
+    public MultipartSizeFilter(Environment environment) {
+        this.maxRequestBytes = environment.getProperty("uploads.max-request-size", DataSize.class,
+                DataSize.ofMegabytes(25)).toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType == null || !contentType.toLowerCase().startsWith("multipart/")
+                || LARGE_UPLOAD_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"File too large\",\"message\":\"Maximum upload size is "
+                    + DataSize.ofBytes(maxRequestBytes).toMegabytes() + "MB\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
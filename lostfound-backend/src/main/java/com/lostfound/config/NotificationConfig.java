@@ -0,0 +1,41 @@
+package com.lostfound.config;
+
+import com.lostfound.service.FcmPushProvider;
+import com.lostfound.service.LoggingPushProvider;
+import com.lostfound.service.PushProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class NotificationConfig {
+
+    // Real delivery only when a Firebase project is configured
+    @Bean
+    @ConditionalOnProperty(name = "notifications.fcm.project-id")
+    public PushProvider fcmPushProvider(@Value("${notifications.fcm.project-id}") String projectId,
+                                        @Value("${notifications.fcm.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                        @Value("${notifications.fcm.read-timeout-ms:5000}") long readTimeoutMs) throws IOException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new FcmPushProvider(projectId, new RestTemplate(requestFactory));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(PushProvider.class)
+    public PushProvider loggingPushProvider() {
+        return new LoggingPushProvider();
+    }
+}
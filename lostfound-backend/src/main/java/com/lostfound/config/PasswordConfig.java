@@ -1,15 +1,64 @@
 package com.lostfound.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 @Configuration
 public class PasswordConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(PasswordConfig.class);
+
+    private static final String BCRYPT = "bcrypt";
+
+    /**
+     * New hashes are stored as {bcrypt}... at the configured (or benchmarked) cost. Hashes written
+     * before the prefix existed are plain bcrypt and still match; upgradeEncoding reports them, and
+     * any hash below the current cost, so login can re-hash them. There is deliberately no {noop}
+     * entry, so a plain-text value in the password column can never match.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(Environment environment) {
+        int strength = environment.getProperty("password.bcrypt.strength", Integer.class, 0);
+        if (strength <= 0) {
+            strength = tuneBcryptStrength(
+                    environment.getProperty("password.bcrypt.target-ms", Long.class, 250L),
+                    environment.getProperty("password.bcrypt.min-strength", Integer.class, 10),
+                    environment.getProperty("password.bcrypt.max-strength", Integer.class, 14));
+        }
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT,
+                Map.of(BCRYPT, new BCryptPasswordEncoder(strength)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+
+    /**
+     * Highest cost whose hash still takes at most targetMs on this machine, within [min, max].
+     * Each step doubles the work, so one timed hash per step is enough.
+     */
+    static int tuneBcryptStrength(long targetMs, int min, int max) {
+        String password = "benchmark-password";
+        new BCryptPasswordEncoder(4).encode(password); // class loading and JIT warm-up
+        int strength = min;
+        long elapsedMs = time(strength, password);
+        while (strength < max && elapsedMs * 2 <= targetMs) {
+            strength++;
+            elapsedMs = time(strength, password);
+        }
+        logger.info("bcrypt cost {} ({} ms per hash, target {} ms)", strength, elapsedMs, targetMs);
+        return strength;
+    }
+
+    private static long time(int strength, String password) {
+        long started = System.nanoTime();
+        new BCryptPasswordEncoder(strength).encode(password);
+        return (System.nanoTime() - started) / 1_000_000;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,308 @@
+package com.lostfound.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lostfound.service.ImageAnalyzer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token-bucket limits for the expensive endpoints: login/registration (bcrypt) per client IP and
+ * submitted email, with a much larger budget per IP on top (a campus behind one NAT address shares
+ * it), image analysis and item creation (Vision) per user. Buckets live in a ConcurrentHashMap and are
+ * updated with compare-and-set, so the hot path takes no lock; idle buckets are evicted once they
+ * would have refilled anyway. Independently of the budgets, these endpoints are shed with 429 while
+ * Vision or the database connection limiter is saturated, before they add to the backlog.
+ * Runs in the security chain right after JwtAuthenticationFilter, so the user is known.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private enum Key { IP, IP_EMAIL, USER }
+
+    // Auth bodies are a few fields; anything larger is limited by IP alone rather than buffered
+    private static final int MAX_BUFFERED_BODY = 16 * 1024;
+
+    private static final class Route {
+        final String name;
+        final String method;
+        final Set<String> paths;
+        final Key key;
+        final boolean usesVision;
+        final long capacity;
+        final double tokensPerNano;
+
+        Route(String name, String method, Set<String> paths, Key key, boolean usesVision, Environment environment,
+              long defaultCapacity, long defaultPerMinute) {
+            this.name = name;
+            this.method = method;
+            this.paths = paths;
+            this.key = key;
+            this.usesVision = usesVision;
+            this.capacity = environment.getProperty("ratelimit." + name + ".capacity", Long.class, defaultCapacity);
+            long perMinute = environment.getProperty("ratelimit." + name + ".per-minute", Long.class, defaultPerMinute);
+            this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        }
+
+        boolean matches(HttpServletRequest request) {
+            return method.equals(request.getMethod()) && paths.contains(request.getServletPath());
+        }
+    }
+
+    // Immutable so a bucket can be swapped with a single compare-and-set
+    private record Bucket(double tokens, long updatedAt) {
+    }
+
+    private static final Set<String> AUTH_PATHS = Set.of("/api/auth/login", "/api/auth/register",
+            "/api/auth/firebase-login", "/api/auth/reset-password");
+
+    private final List<Route> routes;
+    private final boolean enabled;
+    private final int shedDbWaiting;
+    private final Map<String, AtomicReference<Bucket>> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ImageAnalyzer imageAnalyzer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Every DataSource bean; the limited ones are the pools (one, or primary and replica)
+    @Autowired
+    private List<DataSource> dataSources;
+
+    public RateLimitFilter(Environment environment) {
+        this.enabled = environment.getProperty("ratelimit.enabled", Boolean.class, true);
+        this.shedDbWaiting = environment.getProperty("ratelimit.shed.db-waiting", Integer.class, 50);
+        this.routes = List.of(
+                new Route("auth", "POST", AUTH_PATHS, Key.IP_EMAIL, false, environment, 10, 10),
+                new Route("auth-ip", "POST", AUTH_PATHS, Key.IP, false, environment, 300, 300),
+                new Route("vision", "POST", Set.of("/api/items/analyze-image", "/api/items/suggest-category"),
+                        Key.USER, true, environment, 10, 6),
+                new Route("create", "POST", Set.of("/api/items"), Key.USER, false, environment, 20, 10));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || routes.stream().noneMatch(route -> route.matches(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        List<Route> matched = routes.stream().filter(r -> r.matches(request)).toList();
+
+        if ((matched.stream().anyMatch(r -> r.usesVision) && imageAnalyzer.isSaturated()) || databaseSaturated()) {
+            reject(response, 1, "Server busy, please retry shortly");
+            return;
+        }
+
+        HttpServletRequest forwarded = request;
+        String email = null;
+        if (matched.stream().anyMatch(r -> r.key == Key.IP_EMAIL)) {
+            CachedBodyRequest cached = CachedBodyRequest.of(request);
+            if (cached != null) {
+                forwarded = cached;
+                email = emailOf(cached.body);
+            }
+        }
+
+        // Narrowest bucket first, so a user locked out of one account doesn't also spend the shared IP budget
+        for (Route route : matched) {
+            long waitNanos = take(route, route.name + ":" + clientKey(route, request, email));
+            if (waitNanos > 0) {
+                long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+                reject(response, retryAfter, "Too many requests, please retry later");
+                return;
+            }
+        }
+        chain.doFilter(forwarded, response);
+    }
+
+    private boolean databaseSaturated() {
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof ConnectionLimitingDataSource limiter && limiter.isSaturated(shedDbWaiting)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String clientKey(Route route, HttpServletRequest request, String email) {
+        if (route.key == Key.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()) {
+                return "u:" + authentication.getName();
+            }
+        }
+        // The client address as resolved from X-Forwarded-For (server.forward-headers-strategy)
+        String ip = "ip:" + request.getRemoteAddr();
+        return route.key == Key.IP_EMAIL && email != null ? ip + "|e:" + email : ip;
+    }
+
+    // The "email" field of the JSON body, normalised; null when absent or unparseable
+    private String emailOf(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() && !email.asText().isBlank()
+                    ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Takes one token; returns 0 on success, else the nanoseconds until a token is available.
+     */
+    private long take(Route route, String key) {
+        AtomicReference<Bucket> ref = buckets.computeIfAbsent(key,
+                k -> new AtomicReference<>(new Bucket(route.capacity, System.nanoTime())));
+        while (true) {
+            Bucket current = ref.get();
+            long now = System.nanoTime();
+            double tokens = Math.min(route.capacity, current.tokens() + (now - current.updatedAt()) * route.tokensPerNano);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / route.tokensPerNano);
+            }
+            if (ref.compareAndSet(current, new Bucket(tokens - 1, now))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely; a new one starts full, so nothing is lost.
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        for (Route route : routes) {
+            String prefix = route.name + ":";
+            buckets.entrySet().removeIf(entry -> {
+                Bucket bucket = entry.getValue().get();
+                return entry.getKey().startsWith(prefix)
+                        && bucket.tokens() + (now - bucket.updatedAt()) * route.tokensPerNano >= route.capacity;
+            });
+        }
+        if (before != buckets.size()) {
+            logger.debug("Evicted {} idle rate-limit buckets, {} left", before - buckets.size(), buckets.size());
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, String message) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    /**
+     * Holds a small request body in memory so the filter can read it and the controller can read it again.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        // Null when the body is too large to buffer; the request is then passed on untouched
+        static CachedBodyRequest of(HttpServletRequest request) throws IOException {
+            // Chunked bodies (no length) are left alone too: reading one to find its size would consume it
+            long length = request.getContentLengthLong();
+            if (length < 0 || length > MAX_BUFFERED_BODY) {
+                return null;
+            }
+            return new CachedBodyRequest(request, request.getInputStream().readNBytes((int) length));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The body is already in memory: everything is available at once, then all of it has been read
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.lostfound.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary. Must sit
+ * behind a LazyConnectionDataSourceProxy: the transaction manager asks for a connection before it
+ * marks the transaction read-only, the lazy proxy defers the choice to the first statement.
+ * Reads go to the primary instead when
+ * <ul>
+ *   <li>the current user wrote through this instance within the last readYourWritesMs, so they see their own change;</li>
+ *   <li>the replica is behind by more than maxLagMs, or the lag query fails;</li>
+ *   <li>the caller asked for it with {@link #onPrimary(Supplier)} (data that decides a write or a delete).</li>
+ * </ul>
+ * The read-your-writes window is per instance; behind a load balancer without stickiness a user's
+ * next request may land elsewhere, which is why the window should comfortably exceed the usual lag.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource replica;
+    private final long readYourWritesNanos;
+    private final long maxLagMs;
+    private final String lagQuery;
+
+    // user id -> System.nanoTime() of their last read-write transaction on this instance
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+    private volatile long nextSweep = System.nanoTime();
+    private volatile boolean replicaUsable = true;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long readYourWritesMs, long maxLagMs, String lagQuery) {
+        this.replica = replica;
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMs);
+        this.maxLagMs = maxLagMs;
+        this.lagQuery = lagQuery;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Runs work whose reads must see the latest committed data, even inside read-only transactions.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long user = currentUser();
+        long now = System.nanoTime();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                lastWrites.put(user, now);
+                sweep(now);
+            }
+            return PRIMARY;
+        }
+        if (!replicaUsable || FORCE_PRIMARY.get() != null) {
+            return PRIMARY;
+        }
+        Long lastWrite = user != null ? lastWrites.get(user) : null;
+        if (lastWrite != null && now - lastWrite < readYourWritesNanos) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+
+    // Only signed-in users: anonymous callers all share one name, and one anonymous write
+    // (registration, password reset) would send every anonymous read to the primary
+    private static Long currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.getId() : null;
+    }
+
+    // At most once per window: forget users whose window has passed
+    private void sweep(long now) {
+        if (now - nextSweep < 0) {
+            return;
+        }
+        nextSweep = now + readYourWritesNanos;
+        lastWrites.values().removeIf(at -> now - at >= readYourWritesNanos);
+    }
+
+    /**
+     * Takes the replica out of rotation while it lags by more than maxLagMs or cannot be queried.
+     */
+    @Scheduled(fixedDelayString = "${db.replica.lag-check-ms:5000}")
+    public void checkReplicaLag() {
+        if (lagQuery == null || lagQuery.isBlank()) {
+            return;
+        }
+        boolean usable;
+        double lagSeconds = -1;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            lagSeconds = rs.next() ? rs.getDouble(1) : 0;
+            usable = lagSeconds * 1000 <= maxLagMs;
+        } catch (Exception e) {
+            logger.debug("Replica lag check failed: {}", e.getMessage());
+            usable = false;
+        }
+        if (usable != replicaUsable) {
+            if (usable) {
+                logger.info("Replica back in rotation (lag {} s)", lagSeconds);
+            } else {
+                logger.warn("Replica taken out of rotation, reads go to the primary (lag {} s, max {} ms)", lagSeconds, maxLagMs);
+            }
+            replicaUsable = usable;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.lostfound.config;
+
+import com.lostfound.service.BlobStore;
+import com.lostfound.service.LocalBlobStore;
+import com.lostfound.service.S3BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+@Configuration
+public class StorageConfig {
+
+    // S3-compatible storage when storage.type=s3; endpoint + path-style access cover MinIO and friends
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "s3")
+    public BlobStore s3BlobStore(@Value("${storage.s3.bucket}") String bucket,
+                                 @Value("${storage.s3.public-url}") String publicUrl,
+                                 @Value("${storage.s3.region:us-east-1}") String region,
+                                 @Value("${storage.s3.endpoint:}") String endpoint,
+                                 @Value("${storage.s3.path-style:false}") boolean pathStyle,
+                                 @Value("${storage.s3.access-key:}") String accessKey,
+                                 @Value("${storage.s3.secret-key:}") String secretKey) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        // Without explicit keys the SDK's default chain (env, profile, instance role) is used
+        if (!accessKey.isEmpty()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        }
+        return new S3BlobStore(builder.build(), bucket, publicUrl);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(BlobStore.class)
+    public LocalBlobStore localBlobStore(@Value("${storage.local.root:uploads}") String root) {
+        return new LocalBlobStore(Paths.get(root));
+    }
+
+    // Local uploads are served by their own filter, ahead of the security chain and the DispatcherServlet
+    @Bean
+    @ConditionalOnExpression("'${storage.type:local}' != 's3'")
+    public FilterRegistrationBean<UploadServingFilter> uploadServingFilter(LocalBlobStore blobStore,
+                                                                           @Value("${uploads.serving.threads:8}") int threads,
+                                                                           @Value("${uploads.serving.queue-capacity:200}") int queueCapacity,
+                                                                           @Value("${uploads.serving.sendfile-threshold:16384}") long sendfileThreshold,
+                                                                           @Value("${uploads.serving.async-timeout-ms:60000}") long asyncTimeoutMs) {
+        FilterRegistrationBean<UploadServingFilter> registration = new FilterRegistrationBean<>(
+                new UploadServingFilter(blobStore, threads, queueCapacity, sendfileThreshold, asyncTimeoutMs));
+        registration.addUrlPatterns("/uploads/*");
+        registration.setAsyncSupported(true);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,317 @@
+package com.lostfound.config;
+
+import com.lostfound.service.LocalBlobStore;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves LocalBlobStore uploads at /uploads/** ahead of Spring Security and the DispatcherServlet.
+ * Supports single byte ranges, conditional GETs and precompressed .br/.gz siblings. Large files go
+ * out through Tomcat's sendfile, which releases the request thread at once; everything else is
+ * written with FileChannel.transferTo on a small pool of its own, so slow image downloads never
+ * hold API request threads.
+ */
+public class UploadServingFilter implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadServingFilter.class);
+
+    // Tomcat's sendfile contract, as used by its DefaultServlet
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String PREFIX = "/uploads/";
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final LocalBlobStore blobStore;
+    private final long sendfileThreshold;
+    private final long asyncTimeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    public UploadServingFilter(LocalBlobStore blobStore, int threads, int queueCapacity,
+                               long sendfileThreshold, long asyncTimeoutMs) {
+        this.blobStore = blobStore;
+        this.sendfileThreshold = sendfileThreshold;
+        this.asyncTimeoutMs = asyncTimeoutMs;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "upload-serving-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            chain.doFilter(request, response); // CORS preflights etc. keep their usual handling
+            return;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // The /uploads/* mapping also matches /uploads itself, which names no file
+        if (!path.startsWith(PREFIX)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path file;
+        try {
+            file = blobStore.resolve(path.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!Files.isRegularFile(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String contentType = request.getServletContext().getMimeType(file.getFileName().toString());
+        String encoding = null;
+        Path variant = precompressed(file, request.getHeader("Accept-Encoding"));
+        if (variant != null) {
+            encoding = variant.getFileName().toString().endsWith(".br") ? "br" : "gzip";
+            file = variant;
+        }
+
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified)
+                + (encoding != null ? "-" + encoding : "") + "\"";
+
+        response.setHeader("Cache-Control", CACHE_CONTROL);
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        // User-supplied content: never let the browser sniff an image into something executable
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (hasVariants(file, variant)) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        if (encoding != null) {
+            response.setHeader("Content-Encoding", encoding);
+        }
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length; // exclusive
+        String range = request.getHeader("Range");
+        if (range != null && ifRangeMatches(request, etag)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(method)) {
+            return;
+        }
+
+        if (end - start >= sendfileThreshold && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat streams the file from its poller once we return; no thread waits on the client
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        if (!request.isAsyncSupported()) {
+            transfer(file, start, end, response.getOutputStream());
+            return;
+        }
+        AsyncContext async = request.startAsync();
+        async.setTimeout(asyncTimeoutMs);
+        Path source = file;
+        long from = start;
+        long to = end;
+        try {
+            executor.execute(() -> {
+                try {
+                    transfer(source, from, to, async.getResponse().getOutputStream());
+                } catch (IOException e) {
+                    logger.debug("Upload {} not fully sent: {}", path, e.getMessage()); // usually the client went away
+                } finally {
+                    async.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            response.reset();
+            response.setHeader("Retry-After", "1");
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            async.complete();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static void transfer(Path file, long start, long end, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break; // file shrank underneath us; blobs are immutable, so this shouldn't happen
+                }
+                position += sent;
+            }
+        }
+    }
+
+    // A sibling compressed ahead of time (e.g. photo.svg.br) the client accepts, brotli first
+    private static Path precompressed(Path file, String acceptEncoding) {
+        for (String[] candidate : new String[][]{{"br", ".br"}, {"gzip", ".gz"}}) {
+            if (AcceptEncoding.accepts(acceptEncoding, candidate[0])) {
+                Path variant = file.resolveSibling(file.getFileName() + candidate[1]);
+                if (Files.isRegularFile(variant)) {
+                    return variant;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasVariants(Path served, Path variant) {
+        if (variant != null) {
+            return true;
+        }
+        return Files.exists(served.resolveSibling(served.getFileName() + ".br"))
+                || Files.exists(served.resolveSibling(served.getFileName() + ".gz"));
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        Enumeration<String> ifNoneMatch = request.getHeaders("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.hasMoreElements()) {
+            while (ifNoneMatch.hasMoreElements()) {
+                if (anyTagMatches(ifNoneMatch.nextElement(), etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+        // HTTP dates have second precision
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Weak comparison (RFC 9110 13.1.2) of each entity tag in a comma-separated list, or "*", against ours.
+     */
+    static boolean anyTagMatches(String header, String etag) {
+        int i = 0;
+        int n = header.length();
+        while (i < n) {
+            char c = header.charAt(i);
+            if (c == ',' || c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            if (c == '*') {
+                return true;
+            }
+            if (header.startsWith("W/", i)) {
+                i += 2;
+            }
+            if (i >= n || header.charAt(i) != '"') {
+                return false; // malformed: compare nothing rather than guess
+            }
+            int end = header.indexOf('"', i + 1);
+            if (end < 0) {
+                return false;
+            }
+            if (header.regionMatches(i, etag, 0, etag.length()) && end + 1 == i + etag.length()) {
+                return true;
+            }
+            i = end + 1;
+        }
+        return false;
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag) {
+        String ifRange = request.getHeader("If-Range");
+        return ifRange == null || ifRange.trim().equals(etag);
+    }
+
+    /**
+     * {start, endExclusive} for a satisfiable single range, an empty array to ignore the header
+     * (malformed or multi-range; the full body is sent instead), or null if unsatisfiable.
+     */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, length - suffix), length};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length || end < start) {
+                return null;
+            }
+            return new long[]{start, end + 1};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
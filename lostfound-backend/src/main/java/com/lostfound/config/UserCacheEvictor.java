@@ -0,0 +1,59 @@
+package com.lostfound.config;
+
+import com.lostfound.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops a user's cached principal and profile once a change to the row has committed. Registered
+ * as an entity listener on User, so every write path (save, saveAll, delete, dirty checking) is
+ * covered. Evicting before the commit would let a concurrent read cache the old row again.
+ */
+@Component
+public class UserCacheEvictor {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        evictAfterCommit(user.getEmail());
+    }
+
+    /**
+     * Evicts entries cached under this email after the current transaction commits, or now without one.
+     */
+    public void evictAfterCommit(String email) {
+        if (email == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(email);
+                }
+            });
+        } else {
+            evict(email);
+        }
+    }
+
+    private void evict(String email) {
+        for (String name : new String[]{CacheConfig.USERS, CacheConfig.PROFILES}) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.evict(email);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.lostfound.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * HTTP client and resilience policies for Google Cloud Vision. One shared JDK HttpClient keeps
+ * connections alive (HTTP/2 where offered) instead of a new RestTemplate per call; timeouts,
+ * the circuit breaker and the bulkhead stop a slow Vision endpoint from holding request threads.
+ */
+@Configuration
+public class VisionClientConfig {
+
+    @Value("${vision.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${vision.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${vision.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${vision.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${vision.circuit-breaker.open-seconds:30}")
+    private long openSeconds;
+
+    @Value("${vision.bulkhead.max-concurrent-calls:8}")
+    private int maxConcurrentCalls;
+
+    @Value("${vision.bulkhead.max-wait-ms:500}")
+    private long maxWaitMs;
+
+    @Bean
+    public RestTemplate visionRestTemplate() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new RestTemplate(requestFactory);
+    }
+
+    // Once open, calls fail fast and VisionService falls back to its filename-based analysis
+    @Bean
+    public CircuitBreaker visionCircuitBreaker() {
+        return CircuitBreaker.of("vision", CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(Math.min(5, slidingWindowSize))
+                .waitDurationInOpenState(Duration.ofSeconds(openSeconds))
+                .permittedNumberOfCallsInHalfOpenState(2)
+                .build());
+    }
+
+    @Bean
+    public Bulkhead visionBulkhead() {
+        return Bulkhead.of("vision", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(maxWaitMs))
+                .build());
+    }
+}
@@ -1,16 +1,15 @@
 package com.lostfound.controller;
 
+import com.lostfound.config.AuthenticatedUser;
 import com.lostfound.dto.ProfileDTO;
 import com.lostfound.model.User;
 import com.lostfound.repository.UserRepository;
 import com.lostfound.service.AuthService;
+import com.lostfound.service.PasswordHashingService;
 import com.lostfound.service.ProfileService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
@@ -31,7 +30,7 @@ public class AuthController {
     private ProfileService profileService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody User user) {
@@ -54,6 +53,11 @@ public class AuthController {
                         .body(Map.of("error", "EMAIL_NOT_VERIFIED",
                                      "message", "Please verify your email before logging in."));
             }
+            if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                // Password hashing pool is full; let the client back off instead of reporting bad credentials
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+                        .body(Map.of("error", e.getReason()));
+            }
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid email or password"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid email or password"));
@@ -73,7 +77,7 @@ public class AuthController {
             User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            user.setPassword(passwordEncoder.encode(newPassword));
+            user.setPassword(passwordHashingService.encode(newPassword));
             userRepository.save(user);
             
             return ResponseEntity.ok(Map.of("message", "Password reset successful"));
@@ -116,11 +120,10 @@ public class AuthController {
     }
 
     @PostMapping("/update-fcm-token")
-    public ResponseEntity<?> updateFcmToken(@RequestBody Map<String, String> tokenRequest) {
+    public ResponseEntity<?> updateFcmToken(@RequestBody Map<String, String> tokenRequest, AuthenticatedUser currentUser) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+            // Loaded because it is modified; the principal only carries id, email and role
+            User user = userRepository.findById(currentUser.getId()).orElseThrow(() -> new RuntimeException("User not found"));
             user.setFcmToken(tokenRequest.get("fcmToken"));
             userRepository.save(user);
             return ResponseEntity.ok(Map.of("message", "FCM token updated successfully"));
@@ -130,13 +133,9 @@ public class AuthController {
     }
 
     @GetMapping("/profile")
-    public ResponseEntity<?> getProfile(Authentication authentication) {
+    public ResponseEntity<?> getProfile(AuthenticatedUser currentUser) {
         try {
-            if (authentication == null || authentication.getName() == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
-            }
-            String email = authentication.getName();
-            ProfileDTO profile = profileService.getProfile(email);
+            ProfileDTO profile = profileService.getProfile(currentUser);
             return ResponseEntity.ok(profile);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
@@ -144,13 +143,9 @@ public class AuthController {
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<?> updateProfile(@RequestBody ProfileDTO updates, Authentication authentication) {
+    public ResponseEntity<?> updateProfile(@RequestBody ProfileDTO updates, AuthenticatedUser currentUser) {
         try {
-            if (authentication == null || authentication.getName() == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
-            }
-            String email = authentication.getName();
-            ProfileDTO updatedProfile = profileService.updateProfile(email, updates);
+            ProfileDTO updatedProfile = profileService.updateProfile(currentUser, updates);
             return ResponseEntity.ok(updatedProfile);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
@@ -158,13 +153,9 @@ public class AuthController {
     }
 
     @PostMapping("/profile/upload-picture")
-    public ResponseEntity<?> uploadProfilePicture(@RequestParam("file") MultipartFile file, Authentication authentication) {
+    public ResponseEntity<?> uploadProfilePicture(@RequestParam("file") MultipartFile file, AuthenticatedUser currentUser) {
         try {
-            if (authentication == null || authentication.getName() == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
-            }
-            String email = authentication.getName();
-            ProfileDTO updatedProfile = profileService.uploadProfilePicture(email, file);
+            ProfileDTO updatedProfile = profileService.uploadProfilePicture(currentUser, file);
             return ResponseEntity.ok(updatedProfile);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Failed to upload image: " + e.getMessage()));
@@ -174,31 +165,23 @@ public class AuthController {
     }
 
     @DeleteMapping("/profile/delete-picture")
-    public ResponseEntity<?> deleteProfilePicture(Authentication authentication) {
+    public ResponseEntity<?> deleteProfilePicture(AuthenticatedUser currentUser) {
         try {
-            if (authentication == null || authentication.getName() == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
-            }
-            String email = authentication.getName();
-            ProfileDTO updatedProfile = profileService.deleteProfilePicture(email);
+            ProfileDTO updatedProfile = profileService.deleteProfilePicture(currentUser);
             return ResponseEntity.ok(updatedProfile);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
         }
     }
     @PostMapping("/profile/change-password")
-    public ResponseEntity<?> changePassword(@RequestBody Map<String, String> request, Authentication authentication) {
+    public ResponseEntity<?> changePassword(@RequestBody Map<String, String> request, AuthenticatedUser currentUser) {
         try {
-            if (authentication == null || authentication.getName() == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not authenticated"));
-            }
-            String email = authentication.getName();
             String oldPassword = request.get("oldPassword"); // null is fine for OAuth users
             String newPassword = request.get("newPassword");
             if (newPassword == null || newPassword.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "New password is required"));
             }
-            profileService.changePassword(email, oldPassword, newPassword);
+            profileService.changePassword(currentUser, oldPassword, newPassword);
             return ResponseEntity.ok(Map.of("message", "Password set successfully"));
         } catch (org.springframework.web.server.ResponseStatusException e) {
             return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
@@ -209,21 +192,18 @@ public class AuthController {
 
     // Returns whether the current user is an OAuth user (no password set)
     @GetMapping("/is-oauth-user")
-    public ResponseEntity<?> isOAuthUser(Authentication authentication) {
+    public ResponseEntity<?> isOAuthUser(AuthenticatedUser currentUser) {
         try {
-            if (authentication == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            boolean isOAuth = profileService.isOAuthUser(authentication.getName());
+            boolean isOAuth = !currentUser.isPasswordSet();
             return ResponseEntity.ok(Map.of("isOAuthUser", isOAuth));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
         }
     }
     @GetMapping("/auth-type")
-    public ResponseEntity<?> getAuthType(Authentication authentication) {
+    public ResponseEntity<?> getAuthType(AuthenticatedUser currentUser) {
         try {
-            if (authentication == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            String email = authentication.getName();
-            boolean isOAuth = profileService.isOAuthUser(email);
+            boolean isOAuth = !currentUser.isPasswordSet();
             return ResponseEntity.ok(Map.of("isOAuthUser", isOAuth));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
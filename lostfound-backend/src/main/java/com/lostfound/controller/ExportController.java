@@ -0,0 +1,50 @@
+package com.lostfound.controller;
+
+import com.lostfound.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+/**
+ * Admin-only report exports. Rows are streamed in id order; to resume an interrupted export,
+ * pass the id of the last row received as {@code after}.
+ */
+@RestController
+@RequestMapping("/api/export")
+// Restricted to ROLE_ADMIN in SecurityConfig
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping("/items")
+    public ResponseEntity<StreamingResponseBody> exportItems(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false, defaultValue = "0") Long after) {
+
+        ExportService.Format exportFormat = ExportService.Format.valueOf(format.toUpperCase());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .body(out -> exportService.exportItems(exportFormat, from, to, after, out));
+    }
+
+    @GetMapping("/messages")
+    public ResponseEntity<StreamingResponseBody> exportMessages(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false, defaultValue = "0") Long after) {
+
+        ExportService.Format exportFormat = ExportService.Format.valueOf(format.toUpperCase());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .body(out -> exportService.exportMessages(exportFormat, from, to, after, out));
+    }
+}
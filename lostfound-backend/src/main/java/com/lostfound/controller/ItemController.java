@@ -1,26 +1,40 @@
 package com.lostfound.controller;
 
+import com.lostfound.config.AcceptEncoding;
+import com.lostfound.config.AuthenticatedUser;
+import com.lostfound.config.JsonStreamWriter;
 import com.lostfound.model.Item;
 import com.lostfound.model.ItemImage;
 import com.lostfound.model.Status;
 import com.lostfound.model.User;
 import com.lostfound.repository.ItemImageRepository;
 import com.lostfound.repository.UserRepository;
+import com.lostfound.service.FeedService;
+import com.lostfound.service.ImageHashService;
+import com.lostfound.service.ImageIngestService;
+import com.lostfound.service.ItemImportService;
 import com.lostfound.service.ItemService;
+import com.lostfound.service.UploadService;
 import com.lostfound.service.VisionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/items")
@@ -39,16 +53,102 @@ public class ItemController {
     @Autowired
     private ItemImageRepository itemImageRepository;
 
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private ItemImportService itemImportService;
+
+    @Autowired
+    private ImageHashService imageHashService;
+
+    @Autowired
+    private UploadService uploadService;
+
+    @Autowired
+    private ImageIngestService imageIngestService;
+
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
+    /**
+     * Public feed, served from FeedService's pre-serialised snapshot: no query, no serialisation,
+     * and the gzipped form is sent as is to clients that accept it.
+     */
     @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        return ResponseEntity.ok(itemService.findAll());
+    public ResponseEntity<StreamingResponseBody> getAllItems(WebRequest request) {
+        FeedService.Snapshot feed = feedService.current();
+        String etag = feed.getETag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        if (AcceptEncoding.accepts(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip")) {
+            byte[] gzipped = feed.getGzipped();
+            return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .contentLength(gzipped.length)
+                .body(out -> out.write(gzipped));
+        }
+        return response.body(out -> FeedService.writeArray(feed.getItems(), out));
+    }
+
+    /**
+     * Public search over the feed snapshot: every word of q must appear in the title,
+     * description, location or category.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<StreamingResponseBody> searchItems(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "status", required = false) Status status,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<FeedService.FeedItem> found = feedService.search(query, status, category, Math.min(Math.max(limit, 1), 1000));
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(out -> FeedService.writeArray(found, out));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getItemById(@PathVariable Long id) {
-        return itemService.findById(id)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getItemById(@PathVariable Long id, WebRequest request) {
+        // Public detail comes from the feed snapshot; items it doesn't have yet fall back to the database
+        Optional<FeedService.FeedItem> cached = feedService.findItem(id);
+        if (cached.isPresent()) {
+            String etag = cached.get().getETag();
+            if (request.checkNotModified(etag)) {
+                return notModified(etag);
+            }
+            return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cached.get().getJson());
+        }
+
+        Item item = itemService.findById(id).orElse(null);
+        if (item == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = itemService.getItemETag(item);
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .body(item);
+    }
+
+    // no-cache (revalidate every time) also stops Spring Security from adding its default no-store header
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .build();
     }
 
     @PostMapping(consumes = "multipart/form-data")
@@ -61,11 +161,10 @@ public class ItemController {
             @RequestParam("description") String description,
             @RequestParam("contactInfo") String contactInfo,
             @RequestParam(value = "images", required = false) MultipartFile[] images,
-            Authentication authentication) throws IOException {
+            AuthenticatedUser currentUser) throws IOException {
 
-        // Set user from authentication
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+        // Reference only: the owner row is not read just to set the foreign key
+        User user = userRepository.getReferenceById(currentUser.getId());
 
         Item item = new Item();
         item.setTitle(title);
@@ -77,71 +176,73 @@ public class ItemController {
         item.setUser(user);
 
         String finalCategory = category;
-        String primaryImagePath = null;
-        List<String> allImagePaths = new ArrayList<>();
 
         // Handle multiple image uploads
         if (images != null && images.length > 0) {
-            String uploadDir = "uploads/images/";
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
             List<ItemImage> itemImages = new ArrayList<>();
             
             for (int i = 0; i < images.length; i++) {
                 MultipartFile image = images[i];
                 if (image != null && !image.isEmpty()) {
-                    String fileName = UUID.randomUUID().toString() + "_" + image.getOriginalFilename();
-                    Path filePath = uploadPath.resolve(fileName);
-                    Files.copy(image.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-                    
-                    String imageUrl = "/uploads/images/" + fileName;
-                    allImagePaths.add(filePath.toString());
-                    
+                    // Sniffed, decoded under limits, re-encoded without metadata; rejects non-images with 400
+                    UploadService.StoredImage stored = uploadService.storeImage(UploadService.IMAGES, image);
+                    String imageUrl = stored.getUrl();
+
                     // First image is primary
                     boolean isPrimary = (i == 0);
                     
                     // Save image entity
                     ItemImage itemImage = new ItemImage(item, imageUrl, isPrimary, i);
+                    itemImage.setPerceptualHash(stored.getPerceptualHash());
                     itemImages.add(itemImage);
                     
                     if (isPrimary) {
                         item.setImageUrl(imageUrl);
-                        primaryImagePath = filePath.toString();
                     }
                 }
             }
             
-            item.setImages(itemImages);
-        }
+            // Reject a re-upload of a photo this user already reported under the same status
+            List<Long> hashes = itemImages.stream()
+                    .map(ItemImage::getPerceptualHash)
+                    .filter(Objects::nonNull)
+                    .toList();
+            Optional<Item> duplicate = imageHashService.findDuplicate(user, item.getStatus(), hashes);
+            if (duplicate.isPresent()) {
+                // Identical bytes share a blob, so this keeps the one the existing item points at
+                itemImages.forEach(stored -> uploadService.deleteIfUnreferenced(stored.getImageUrl()));
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                        "error", "You already reported this item",
+                        "duplicateOf", duplicate.get().getId()));
+            }
 
-        // Google AI Tool: Use Vision API to auto-detect category from first image if not provided
-        if ((finalCategory == null || finalCategory.trim().isEmpty()) && !allImagePaths.isEmpty()) {
-            VisionService.EnhancedAnalysisResult aiResult = visionService.analyzeImageEnhanced(allImagePaths.get(0));
-            finalCategory = aiResult.getCategory();
-            
-            // Save AI detection results
-            item.setAiDetectedCategory(aiResult.getCategory());
-            item.setAiConfidenceScore(aiResult.getConfidenceScore());
-            item.setAiDetectedColors(aiResult.getDetectedColors());
-            item.setAiDetectedBrands(aiResult.getDetectedBrands());
+            item.setImages(itemImages);
         }
 
-        // Set category, default to "Other" if still not set
+        // Set category, default to "Other" if not chosen — Vision analysis of the primary image
+        // runs in the background (outbox) and replaces "Other" with the detected category
         item.setCategory(finalCategory != null && !finalCategory.trim().isEmpty() ? finalCategory : "Other");
 
-        // Google AI Tool: Extract AI labels for matching (from first image)
-        if (!allImagePaths.isEmpty()) {
-            List<String> aiLabels = visionService.analyzeImageAndExtractLabels(allImagePaths.get(0));
-            item.setAiLabels(aiLabels);
-        }
-
         Item savedItem = itemService.save(item);
         return ResponseEntity.ok(savedItem);
     }
 
+    /**
+     * Bulk import: one NDJSON row per item plus an optional zip holding the images the rows reference.
+     * The zip may be up to spring.servlet.multipart.max-file-size (100MB), each image in it up to
+     * images.ingest.max-bytes. Vision analysis and matching for imported items run in the background.
+     */
+    @PostMapping(value = "/import", consumes = "multipart/form-data")
+    public ResponseEntity<?> importItems(
+            @RequestParam("items") MultipartFile items,
+            @RequestParam(value = "images", required = false) MultipartFile images,
+            AuthenticatedUser currentUser) throws IOException {
+
+        User user = userRepository.getReferenceById(currentUser.getId());
+        int imported = itemImportService.importItems(items, images, user);
+        return ResponseEntity.ok(Map.of("imported", imported));
+    }
+
     /**
      * Phase 1: New endpoint for AI image analysis
      * Returns detailed analysis: category, colors, brands, confidence score, labels
@@ -154,13 +255,15 @@ public class ItemController {
             return ResponseEntity.badRequest().build();
         }
 
-        // Save temp image
-        String tempFileName = "temp_analysis_" + UUID.randomUUID().toString() + "_" + image.getOriginalFilename();
-        Path tempPath = Paths.get("uploads/images/").resolve(tempFileName);
-        Files.createDirectories(tempPath.getParent());
-        Files.copy(image.getInputStream(), tempPath, StandardCopyOption.REPLACE_EXISTING);
-
+        // Same validation as stored uploads, so the analyzers only ever decode a normalised image
+        ImageIngestService.Ingested ingested;
+        try (InputStream in = image.getInputStream()) {
+            ingested = imageIngestService.ingest(in);
+        }
+        // Save temp image (system temp dir: it is never served, and a crash can't leave it among the uploads)
+        Path tempPath = Files.createTempFile("analysis", ingested.getExtension());
         try {
+            Files.write(tempPath, ingested.getData());
             // Analyze image with enhanced Vision API
             VisionService.EnhancedAnalysisResult result = visionService.analyzeImageEnhanced(tempPath.toString());
             return ResponseEntity.ok(result);
@@ -180,26 +283,28 @@ public class ItemController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Item>> getItemsByUser(@PathVariable Long userId) {
-        return ResponseEntity.ok(itemService.findByUserId(userId));
+    public ResponseEntity<StreamingResponseBody> getItemsByUser(@PathVariable Long userId) {
+        return itemsOf(userId);
     }
 
     @GetMapping("/my")
-    public ResponseEntity<List<Item>> getMyItems(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
-        return ResponseEntity.ok(itemService.findByUserId(user.getId()));
+    public ResponseEntity<StreamingResponseBody> getMyItems(AuthenticatedUser currentUser) {
+        return itemsOf(currentUser.getId());
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteItem(@PathVariable Long id, Authentication authentication) {
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+    // The query runs while the body is written, one cursor row at a time
+    private ResponseEntity<StreamingResponseBody> itemsOf(Long userId) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(jsonStreamWriter.array(sink -> itemService.forEachByUserId(userId, sink)));
+    }
 
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteItem(@PathVariable Long id, AuthenticatedUser currentUser) {
         Item item = itemService.findById(id).orElseThrow(() -> new RuntimeException("Item not found"));
 
         // Check if the user owns the item
-        if (!item.getUser().getId().equals(user.getId())) {
+        if (!item.getUser().getId().equals(currentUser.getId())) {
             return ResponseEntity.status(403).build();
         }
 
@@ -213,15 +318,18 @@ public class ItemController {
             return ResponseEntity.badRequest().body("Image is required");
         }
 
-        String tempFileName = "temp_" + UUID.randomUUID().toString() + "_" + image.getOriginalFilename();
-        Path tempPath = Paths.get("uploads/images/").resolve(tempFileName);
-        Files.createDirectories(tempPath.getParent());
-        Files.copy(image.getInputStream(), tempPath, StandardCopyOption.REPLACE_EXISTING);
-
-        String suggestedCategory = visionService.analyzeImageAndDetectCategory(tempPath.toString());
-
-        Files.deleteIfExists(tempPath);
-
-        return ResponseEntity.ok(suggestedCategory);
+        // Same validation as stored uploads, so the analyzers only ever decode a normalised image
+        ImageIngestService.Ingested ingested;
+        try (InputStream in = image.getInputStream()) {
+            ingested = imageIngestService.ingest(in);
+        }
+        Path tempPath = Files.createTempFile("category", ingested.getExtension());
+        try {
+            Files.write(tempPath, ingested.getData());
+            String suggestedCategory = visionService.analyzeImageAndDetectCategory(tempPath.toString());
+            return ResponseEntity.ok(suggestedCategory);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
     }
 }
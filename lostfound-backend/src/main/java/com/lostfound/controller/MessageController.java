@@ -1,14 +1,16 @@
 package com.lostfound.controller;
 
+import com.lostfound.config.AuthenticatedUser;
+import com.lostfound.config.JsonStreamWriter;
 import com.lostfound.model.Message;
-import com.lostfound.model.User;
-import com.lostfound.repository.UserRepository;
 import com.lostfound.service.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -21,18 +23,15 @@ public class MessageController {
     private MessageService messageService;
 
     @Autowired
-    private UserRepository userRepository;
+    private JsonStreamWriter jsonStreamWriter;
 
     // Send a message
     @PostMapping
     public ResponseEntity<?> sendMessage(
             @RequestBody Map<String, Object> request,
-            Authentication authentication) {
+            AuthenticatedUser sender) {
 
         try {
-            String email = authentication.getName();
-            User sender = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
 
             Long receiverId = null;
             Long itemId = null;
@@ -87,20 +86,18 @@ public class MessageController {
     public ResponseEntity<?> getConversation(
             @RequestParam Long otherUserId,
             @RequestParam(required = false, defaultValue = "0") Long itemId,
-            Authentication authentication) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            AuthenticatedUser currentUser) {
 
         try {
-            String email = authentication.getName();
-            User currentUser = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
             List<Message> messages = messageService.getConversation(
                     currentUser.getId(),
                     otherUserId,
-                    itemId
+                    itemId,
+                    since
             );
 
-            messageService.markConversationAsRead(currentUser.getId(), otherUserId);
+            messageService.markConversationAsRead(currentUser.getId(), otherUserId, since);
 
             return ResponseEntity.ok(messages);
 
@@ -114,32 +111,23 @@ public class MessageController {
 
     // Get all messages for current user
     @GetMapping("/all")
-    public ResponseEntity<?> getAllMessages(Authentication authentication) {
-        try {
-            String email = authentication.getName();
-            User currentUser = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            List<Message> messages = messageService.getAllMessagesForUser(currentUser.getId());
-            return ResponseEntity.ok(messages);
-
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of(
-                    "success", false,
-                    "error", e.getMessage()
-            ));
-        }
+    public ResponseEntity<?> getAllMessages(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            AuthenticatedUser currentUser) {
+        // The query runs while the body is written, one cursor row at a time
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonStreamWriter.array(sink ->
+                        messageService.forEachMessageForUser(currentUser.getId(), since, sink)));
     }
 
     // Get unread message count
     @GetMapping("/unread-count")
-    public ResponseEntity<?> getUnreadCount(Authentication authentication) {
+    public ResponseEntity<?> getUnreadCount(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            AuthenticatedUser currentUser) {
         try {
-            String email = authentication.getName();
-            User currentUser = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            long count = messageService.getUnreadCount(currentUser.getId());
+            long count = messageService.getUnreadCount(currentUser.getId(), since);
             return ResponseEntity.ok(Map.of("count", count));
 
         } catch (Exception e) {
@@ -154,7 +142,7 @@ public class MessageController {
     @PutMapping("/{messageId}/read")
     public ResponseEntity<?> markAsRead(
             @PathVariable Long messageId,
-            Authentication authentication) {
+            AuthenticatedUser currentUser) {
         try {
             messageService.markAsRead(messageId);
             return ResponseEntity.ok(Map.of("success", true));
@@ -0,0 +1,34 @@
+package com.lostfound.dto;
+
+import java.util.List;
+
+// One line of a bulk import NDJSON file; images are entry names inside the accompanying zip
+public class ItemImportDTO {
+    private String title;
+    private String category;
+    private String status;
+    private String location;
+    private String date;
+    private String description;
+    private String contactInfo;
+    private List<String> images;
+
+    public ItemImportDTO() {}
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public String getContactInfo() { return contactInfo; }
+    public void setContactInfo(String contactInfo) { this.contactInfo = contactInfo; }
+    public List<String> getImages() { return images; }
+    public void setImages(List<String> images) { this.images = images; }
+}
@@ -0,0 +1,46 @@
+package com.lostfound.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Typed view of the images:annotate response. Only the fields VisionService reads are declared;
+ * everything else (e.g. the large fullTextAnnotation) is skipped by the parser without being mapped.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record VisionResponse(List<AnnotateImageResponse> responses) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record AnnotateImageResponse(
+            List<EntityAnnotation> labelAnnotations,
+            List<EntityAnnotation> textAnnotations,
+            ImageProperties imagePropertiesAnnotation,
+            Status error) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record EntityAnnotation(String description, Float score) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ImageProperties(DominantColors dominantColors) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record DominantColors(List<ColorInfo> colors) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ColorInfo(Color color, Float score, Float pixelFraction) {
+    }
+
+    // Channels are 0-255; Vision omits a channel when it is 0
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Color(Float red, Float green, Float blue) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Status(Integer code, String message) {
+    }
+}
@@ -237,6 +237,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
@@ -244,8 +245,10 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 @Table(name = "items")
 public class Item {
 
+    // Sequence (not IDENTITY) ids so Hibernate can batch inserts — see V5 migration
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -285,9 +288,9 @@ public class Item {
     @JsonIgnoreProperties({"item"})  // ← breaks the Item→ItemImage→Item loop
     private List<ItemImage> images = new ArrayList<>();
 
-    // Messages linked to this item (cascade delete)
+    // Messages linked to this item (cascade delete) — served by /api/messages, never embedded in item JSON
     @OneToMany(mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
-    @JsonIgnoreProperties({"item", "sender", "receiver"})
+    @JsonIgnore
     private List<Message> messages = new ArrayList<>();
 
     // AI Detection Fields
@@ -303,6 +306,11 @@ public class Item {
     @Column(name = "ai_detected_brands", length = 255)
     private String aiDetectedBrands;
 
+    // Bumped on every update — used for optimistic locking and as the per-item ETag
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version = 0L;
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -368,6 +376,9 @@ public class Item {
     public String getAiDetectedBrands() { return aiDetectedBrands; }
     public void setAiDetectedBrands(String aiDetectedBrands) { this.aiDetectedBrands = aiDetectedBrands; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     // Primary image URL for backward compatibility
     public String getPrimaryImageUrl() {
         if (images != null && !images.isEmpty()) {
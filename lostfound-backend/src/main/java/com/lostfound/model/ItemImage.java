@@ -98,8 +98,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @Table(name = "item_images")
 public class ItemImage {
 
+    // Sequence (not IDENTITY) ids so Hibernate can batch inserts — see V5 migration
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_images_seq")
+    @SequenceGenerator(name = "item_images_seq", sequenceName = "item_images_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -119,6 +121,11 @@ public class ItemImage {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // 64-bit difference hash of the image, see ImageHashService
+    @Column(name = "phash")
+    @JsonIgnore
+    private Long perceptualHash;
+
     public ItemImage() {
         this.createdAt = LocalDateTime.now();
     }
@@ -148,4 +155,7 @@ public class ItemImage {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Long getPerceptualHash() { return perceptualHash; }
+    public void setPerceptualHash(Long perceptualHash) { this.perceptualHash = perceptualHash; }
 }
\ No newline at end of file
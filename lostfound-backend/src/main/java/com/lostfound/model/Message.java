@@ -9,8 +9,10 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 @Table(name = "messages")
 public class Message {
 
+    // Sequence (not IDENTITY) ids so Hibernate can batch inserts — see V6 migration
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_seq")
+    @SequenceGenerator(name = "messages_seq", sequenceName = "messages_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -35,7 +37,8 @@ public class Message {
     @Column(columnDefinition = "TEXT")
     private String content;
 
-    @Column(name = "created_at")
+    // Partition key of the messages table — must be set on insert and never moved afterwards
+    @Column(name = "created_at", nullable = false, updatable = false)
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime createdAt;
 
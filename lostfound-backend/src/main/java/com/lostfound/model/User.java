@@ -1,5 +1,6 @@
 package com.lostfound.model;
 
+import com.lostfound.config.UserCacheEvictor;
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -11,6 +12,7 @@ import jakarta.validation.constraints.Pattern;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheEvictor.class)
 public class User {
 
     @Id
@@ -2,6 +2,7 @@ package com.lostfound.repository;
 
 import com.lostfound.model.ItemImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -28,4 +29,12 @@ public interface ItemImageRepository extends JpaRepository<ItemImage, Long> {
      * Count images for an item
      */
     long countByItemId(Long itemId);
+
+    boolean existsByImageUrl(String imageUrl);
+
+    /**
+     * (item id, perceptual hash) for every hashed image, used to build the in-memory hash index
+     */
+    @Query("SELECT i.item.id, i.perceptualHash FROM ItemImage i WHERE i.perceptualHash IS NOT NULL")
+    List<Object[]> findAllHashes();
 }
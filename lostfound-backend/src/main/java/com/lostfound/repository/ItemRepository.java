@@ -1,11 +1,16 @@
 package com.lostfound.repository;
 
 import com.lostfound.model.Item;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findByUserId(Long userId);
@@ -13,9 +18,21 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     @Query("SELECT i FROM Item i LEFT JOIN FETCH i.user LEFT JOIN FETCH i.images")
     List<Item> findAllWithUser();
     
-    @Query("SELECT i FROM Item i LEFT JOIN FETCH i.user LEFT JOIN FETCH i.images WHERE i.user.id = :userId")
-    List<Item> findByUserIdWithUser(@Param("userId") Long userId);
+    // From a cursor, inside a transaction; ordered by id so each item's image rows arrive together
+    @Query("SELECT i FROM Item i LEFT JOIN FETCH i.user LEFT JOIN FETCH i.images WHERE i.user.id = :userId ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Item> streamByUserIdWithUser(@Param("userId") Long userId);
     
     @Query("SELECT i FROM Item i LEFT JOIN FETCH i.user LEFT JOIN FETCH i.images WHERE i.id = :id")
     Optional<Item> findByIdWithUser(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT i FROM Item i LEFT JOIN FETCH i.aiLabels WHERE i.id IN :ids")
+    List<Item> findAllWithLabelsByIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsByImageUrl(String imageUrl);
+
+    // Changes with every insert, update (each bumps the @Version column) and delete, whichever instance made it
+    @Query("SELECT CONCAT(CAST(COUNT(i) AS String), '-', CAST(COALESCE(SUM(i.version), 0) AS String), '-', " +
+           "CAST(COALESCE(MAX(i.id), 0) AS String)) FROM Item i")
+    String catalogueVersion();
 }
\ No newline at end of file
@@ -1,36 +1,49 @@
 package com.lostfound.repository;
 
 import com.lostfound.model.Message;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+// Every query is bounded by createdAt >= :since, the window the caller asked for
+// (MessagePartitionService.queryStart), so Postgres only scans the partitions from that month on
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
     // Get conversation between two users for a specific item
-    @Query("SELECT m FROM Message m WHERE " +
+    @Query("SELECT m FROM Message m WHERE m.createdAt >= :since AND (" +
            "(m.sender.id = :user1 AND m.receiver.id = :user2) OR " +
-           "(m.sender.id = :user2 AND m.receiver.id = :user1) " +
+           "(m.sender.id = :user2 AND m.receiver.id = :user1)) " +
            "ORDER BY m.createdAt ASC")
-    List<Message> findConversation(@Param("user1") Long user1, @Param("user2") Long user2);
+    List<Message> findConversation(@Param("user1") Long user1, @Param("user2") Long user2,
+                                   @Param("since") LocalDateTime since);
 
-    // Get all messages for a user (sent or received)
-    @Query("SELECT m FROM Message m WHERE m.sender.id = :userId OR m.receiver.id = :userId ORDER BY m.createdAt DESC")
-    List<Message> findAllMessagesForUser(@Param("userId") Long userId);
+    // Get all messages for a user (sent or received), from a cursor; the eager associations come in the same rows.
+    // Must be consumed and closed inside a transaction: Postgres only streams with a fetch size there
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver LEFT JOIN FETCH m.item " +
+           "WHERE m.createdAt >= :since AND " +
+           "(m.sender.id = :userId OR m.receiver.id = :userId) ORDER BY m.createdAt DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Message> streamAllMessagesForUser(@Param("userId") Long userId, @Param("since") LocalDateTime since);
 
     // Get unread message count for a user
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.receiver.id = :userId AND m.read = false")
-    long countUnreadMessages(@Param("userId") Long userId);
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.createdAt >= :since AND m.receiver.id = :userId AND m.read = false")
+    long countUnreadMessages(@Param("userId") Long userId, @Param("since") LocalDateTime since);
 
     // Get conversation by item and users
-    @Query("SELECT m FROM Message m WHERE m.item.id = :itemId AND " +
+    @Query("SELECT m FROM Message m WHERE m.createdAt >= :since AND m.item.id = :itemId AND " +
            "((m.sender.id = :user1 AND m.receiver.id = :user2) OR " +
            "(m.sender.id = :user2 AND m.receiver.id = :user1)) " +
            "ORDER BY m.createdAt ASC")
     List<Message> findConversationByItem(
-        @Param("itemId") Long itemId, 
-        @Param("user1") Long user1, 
-        @Param("user2") Long user2
+        @Param("itemId") Long itemId,
+        @Param("user1") Long user1,
+        @Param("user2") Long user2,
+        @Param("since") LocalDateTime since
     );
 }
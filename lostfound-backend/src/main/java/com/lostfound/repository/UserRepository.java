@@ -7,6 +7,8 @@ import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // Uncached: callers get their own entity, with the current password hash. The per-request
+    // lookup is cached as a credential-free AuthenticatedUser in UserDetailsServiceImpl instead
     Optional<User> findByEmail(String email);
 
     Optional<User> findByFirebaseUid(String firebaseUid);
@@ -16,4 +18,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     boolean existsByUniversityId(String universityId);
+
+    boolean existsByProfilePictureUrl(String profilePictureUrl);
 }
@@ -103,17 +103,13 @@
 // }
 package com.lostfound.service;
 
+import com.lostfound.config.UserCacheEvictor;
 import com.lostfound.model.User;
 import com.lostfound.model.Role;
 import com.lostfound.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.util.Optional;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -127,10 +123,10 @@ public class AuthService {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private UserCacheEvictor userCacheEvictor;
 
     // ✅ REGISTER — saves to MySQL, Firebase handles email verification separately
     public String register(User user) {
@@ -140,7 +136,7 @@ public class AuthService {
 
         user.setRole(Role.USER);
         user.setEmailVerified(false); // not verified yet
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         userRepository.save(user);
 
         // Don't return JWT yet — user must verify email first
@@ -158,11 +154,21 @@ public class AuthService {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "EMAIL_NOT_VERIFIED");
         }
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(email, password)
-        );
+        // Verified on the hashing pool; OAuth-only users have no password and never match
+        if (!passwordHashingService.matches(password, user.getPassword())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid email or password");
+        }
+
+        // The plain password is only at hand now: move legacy or lower-cost hashes to the current encoding
+        // Changed on a freshly loaded copy, so a failed save leaves nothing half-updated behind
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            String rehashed = passwordHashingService.encode(password);
+            userRepository.findById(user.getId()).ifPresent(fresh -> {
+                fresh.setPassword(rehashed);
+                userRepository.save(fresh);
+            });
+        }
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
         return jwtUtils.generateToken(email);
     }
 
@@ -171,9 +177,12 @@ public class AuthService {
         Optional<User> existingUser = userRepository.findByFirebaseUid(firebaseUid);
 
         User user;
+        String previousEmail = null;
         if (existingUser.isPresent()) {
             user = existingUser.get();
             if (!user.getEmail().equals(email)) {
+                // The entity listener only sees the new email; entries cached under the old one go too
+                previousEmail = user.getEmail();
                 user.setEmail(email);
             }
         } else {
@@ -199,6 +208,7 @@ public class AuthService {
         }
 
         userRepository.save(user);
+        userCacheEvictor.evictAfterCommit(previousEmail);
 
         // Only issue JWT if email is verified
         if (!user.isEmailVerified()) {
@@ -0,0 +1,113 @@
+package com.lostfound.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Storage SPI for uploaded files. Blobs are content addressed: the key is derived from the SHA-256
+ * of the bytes, so identical uploads share one blob and a key never changes content.
+ * Keys look like "images/ab/cd/abcd...ef.jpg"; the two prefix levels keep directories small.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores the stream (read to EOF, not closed) under namespace and returns its key.
+     */
+    String put(String namespace, InputStream content, String extension) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Runs the callback against a local file holding the blob (the file itself, or a temporary copy).
+     */
+    <T> T withLocalFile(String key, LocalFileCallback<T> callback) throws Exception;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Last time the blob was written (or re-put with the same content), or null if it doesn't exist.
+     */
+    Instant lastModified(String key) throws IOException;
+
+    /**
+     * Visits every blob stored under namespace; used by UploadReconciler to find orphans. Order is
+     * unspecified. Nothing outside the namespace is visited, so a shared bucket or directory is safe.
+     */
+    void list(String namespace, BlobVisitor visitor) throws IOException;
+
+    /**
+     * Public URL the blob is served under.
+     */
+    String urlFor(String key);
+
+    /**
+     * Key for a URL returned by {@link #urlFor}, or null if the URL does not belong to this store.
+     */
+    String keyFor(String url);
+
+    interface LocalFileCallback<T> {
+        T apply(Path file) throws Exception;
+    }
+
+    interface BlobVisitor {
+        void visit(String key, Instant lastModified) throws IOException;
+    }
+
+    /**
+     * Copies the stream to a temp file in dir while hashing it; the caller moves or deletes the file.
+     */
+    static Spooled spool(InputStream content, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path file = Files.createTempFile(dir, "upload", ".tmp");
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+            content.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new Spooled(file, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    static String keyOf(String namespace, String sha256, String extension) {
+        return namespace + "/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + extension;
+    }
+
+    /**
+     * ".jpg"-style extension from an uploaded filename; anything unusual is dropped.
+     */
+    static String extensionOf(String filename) {
+        if (filename == null || filename.lastIndexOf('.') < 0) {
+            return "";
+        }
+        String extension = filename.substring(filename.lastIndexOf('.')).toLowerCase(Locale.ROOT);
+        return extension.matches("\\.[a-z0-9]{1,5}") ? extension : "";
+    }
+
+    class Spooled {
+        private final Path file;
+        private final String sha256;
+
+        Spooled(Path file, String sha256) {
+            this.file = file;
+            this.sha256 = sha256;
+        }
+
+        public Path getFile() { return file; }
+        public String getSha256() { return sha256; }
+    }
+}
@@ -0,0 +1,194 @@
+package com.lostfound.service;
+
+import com.lostfound.dto.VisionResponse.EntityAnnotation;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Maps labels and filenames to an item category. The keyword table (vision.category-keywords) is compiled
+ * once into an Aho-Corasick automaton, so each text is scanned a single time regardless of how many
+ * keywords there are. Every hit adds a weighted score to its category and the best-scoring category wins.
+ */
+@Component
+public class CategoryClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryClassifier.class);
+
+    public static final String OTHER = "Other";
+
+    // Substring hits (e.g. "phone" in "smartphone") count half as much as whole-word hits
+    private static final double PARTIAL_MATCH_WEIGHT = 0.5;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${vision.category-keywords:classpath:category-keywords.txt}")
+    private String keywordsLocation;
+
+    private volatile Automaton automaton;
+
+    @PostConstruct
+    public void load() throws IOException {
+        List<String> categories = new ArrayList<>();
+        List<String> keywords = new ArrayList<>();
+        List<Integer> keywordCategories = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                resourceLoader.getResource(keywordsLocation).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                int eq = line.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalStateException("Invalid line in " + keywordsLocation + ": " + line);
+                }
+                String category = line.substring(0, eq).trim();
+                int categoryIndex = categories.indexOf(category);
+                if (categoryIndex < 0) {
+                    categories.add(category);
+                    categoryIndex = categories.size() - 1;
+                }
+                for (String keyword : line.substring(eq + 1).split(",")) {
+                    keyword = keyword.trim().toLowerCase();
+                    if (!keyword.isEmpty()) {
+                        keywords.add(keyword);
+                        keywordCategories.add(categoryIndex);
+                    }
+                }
+            }
+        }
+
+        automaton = new Automaton(categories, keywords, keywordCategories);
+        logger.info("Loaded {} category keywords for {} categories from {}",
+                keywords.size(), categories.size(), keywordsLocation);
+    }
+
+    /**
+     * Category for Vision labels; each hit is weighted by the label's confidence.
+     */
+    public String classify(List<EntityAnnotation> labels) {
+        Automaton current = automaton;
+        double[] scores = new double[current.categories.size()];
+        for (EntityAnnotation label : labels) {
+            if (label.description() != null) {
+                current.score(label.description().toLowerCase(), label.score() != null ? label.score() : 1.0, scores);
+            }
+        }
+        return current.best(scores);
+    }
+
+    /**
+     * Category for free text such as an image filename.
+     */
+    public String classify(String text) {
+        Automaton current = automaton;
+        double[] scores = new double[current.categories.size()];
+        current.score(text.toLowerCase(), 1.0, scores);
+        return current.best(scores);
+    }
+
+    private static class Automaton {
+        final List<String> categories;
+        final int[] keywordLength;
+        final int[] keywordCategory;
+
+        // Trie nodes; node 0 is the root
+        final List<Map<Character, Integer>> next = new ArrayList<>();
+        final List<Integer> fail = new ArrayList<>();
+        // Keywords ending at each node, including those reached through fail links
+        final List<List<Integer>> output = new ArrayList<>();
+
+        Automaton(List<String> categories, List<String> keywords, List<Integer> keywordCategories) {
+            this.categories = categories;
+            this.keywordLength = new int[keywords.size()];
+            this.keywordCategory = new int[keywords.size()];
+            addNode();
+
+            for (int k = 0; k < keywords.size(); k++) {
+                String keyword = keywords.get(k);
+                keywordLength[k] = keyword.length();
+                keywordCategory[k] = keywordCategories.get(k);
+                int node = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    Integer child = next.get(node).get(keyword.charAt(i));
+                    if (child == null) {
+                        child = addNode();
+                        next.get(node).put(keyword.charAt(i), child);
+                    }
+                    node = child;
+                }
+                output.get(node).add(k);
+            }
+
+            // Breadth-first so every node's fail target is finished before its children need it
+            Queue<Integer> queue = new ArrayDeque<>(next.get(0).values());
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (Map.Entry<Character, Integer> edge : next.get(node).entrySet()) {
+                    int child = edge.getValue();
+                    int target = fail.get(node);
+                    while (target != 0 && !next.get(target).containsKey(edge.getKey())) {
+                        target = fail.get(target);
+                    }
+                    Integer failTo = next.get(target).get(edge.getKey());
+                    fail.set(child, failTo != null && failTo != child ? failTo : 0);
+                    output.get(child).addAll(output.get(fail.get(child)));
+                    queue.add(child);
+                }
+            }
+        }
+
+        private int addNode() {
+            next.add(new HashMap<>());
+            fail.add(0);
+            output.add(new ArrayList<>());
+            return next.size() - 1;
+        }
+
+        void score(String text, double weight, double[] scores) {
+            int node = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                while (node != 0 && !next.get(node).containsKey(c)) {
+                    node = fail.get(node);
+                }
+                node = next.get(node).getOrDefault(c, 0);
+                for (int k : output.get(node)) {
+                    int start = i - keywordLength[k] + 1;
+                    boolean wholeWord = (start == 0 || !Character.isLetter(text.charAt(start - 1)))
+                            && (i == text.length() - 1 || !Character.isLetter(text.charAt(i + 1)));
+                    scores[keywordCategory[k]] += wholeWord ? weight : weight * PARTIAL_MATCH_WEIGHT;
+                }
+            }
+        }
+
+        // Ties go to the category declared first, so results don't depend on hash ordering
+        String best(double[] scores) {
+            int best = -1;
+            for (int i = 0; i < scores.length; i++) {
+                if (scores[i] > 0 && (best < 0 || scores[i] > scores[best])) {
+                    best = i;
+                }
+            }
+            return best < 0 ? OTHER : categories.get(best);
+        }
+    }
+}
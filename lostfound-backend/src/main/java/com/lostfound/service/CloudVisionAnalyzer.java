@@ -0,0 +1,133 @@
+package com.lostfound.service;
+
+import com.lostfound.dto.VisionResponse;
+import com.lostfound.dto.VisionResponse.AnnotateImageResponse;
+import com.lostfound.dto.VisionResponse.ColorInfo;
+import com.lostfound.dto.VisionResponse.EntityAnnotation;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Google Cloud Vision images:annotate (labels, text and image properties). Calls run inside the
+ * bulkhead and circuit breaker from VisionClientConfig; when either rejects a call the exception
+ * sends interactive callers to VisionService's fallback analysis and outbox events back for a retry.
+ */
+public class CloudVisionAnalyzer implements ImageAnalyzer {
+
+    private final RestTemplate restTemplate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final String endpoint;
+    private final String apiKey;
+
+    public CloudVisionAnalyzer(RestTemplate restTemplate, CircuitBreaker circuitBreaker, Bulkhead bulkhead,
+                               String endpoint, String apiKey) {
+        this.restTemplate = restTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public Analysis analyze(String imagePath) throws Exception {
+        // Bulkhead outermost so rejected calls are not counted as Vision failures
+        AnnotateImageResponse response = Bulkhead.decorateCallable(bulkhead,
+                CircuitBreaker.decorateCallable(circuitBreaker,
+                        () -> callVisionAPI(imagePath))).call();
+
+        List<ColorInfo> colors = List.of();
+        if (response.imagePropertiesAnnotation() != null
+                && response.imagePropertiesAnnotation().dominantColors() != null
+                && response.imagePropertiesAnnotation().dominantColors().colors() != null) {
+            colors = response.imagePropertiesAnnotation().dominantColors().colors();
+        }
+        return new Analysis(labelsOf(response), colors);
+    }
+
+    private AnnotateImageResponse callVisionAPI(String imagePath) throws Exception {
+        byte[] imageBytes = Files.readAllBytes(Paths.get(imagePath));
+        String base64Image = Base64.getEncoder().encodeToString(imageBytes);
+
+        String url = endpoint + "/v1/images:annotate?key=" + apiKey;
+
+        // Request multiple features: labels, text (for brand detection) and dominant colors
+        Map<String, Object> requestBody = Map.of(
+            "requests", List.of(
+                Map.of(
+                    "image", Map.of("content", base64Image),
+                    "features", List.of(
+                        Map.of("type", "LABEL_DETECTION", "maxResults", 15),
+                        Map.of("type", "TEXT_DETECTION", "maxResults", 5),
+                        Map.of("type", "IMAGE_PROPERTIES", "maxResults", 5)
+                    )
+                )
+            )
+        );
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        // Bound straight onto the typed response; fields we don't declare are skipped by the parser
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        ResponseEntity<VisionResponse> response = restTemplate.postForEntity(url, entity, VisionResponse.class);
+
+        if (response.getStatusCode() != HttpStatus.OK) {
+            throw new Exception("Vision API request failed with status: " + response.getStatusCode());
+        }
+
+        VisionResponse body = response.getBody();
+        if (body == null || body.responses() == null || body.responses().isEmpty()) {
+            throw new Exception("No responses from Vision API");
+        }
+
+        AnnotateImageResponse first = body.responses().get(0);
+        if (first.error() != null) {
+            throw new Exception("Vision API error: " + first.error().message());
+        }
+        return first;
+    }
+
+    /**
+     * Label annotations followed by detected words (brand names printed on the item, etc.).
+     */
+    private List<EntityAnnotation> labelsOf(AnnotateImageResponse response) {
+        List<EntityAnnotation> labels = new ArrayList<>();
+        if (response.labelAnnotations() != null) {
+            for (EntityAnnotation label : response.labelAnnotations()) {
+                if (label.description() != null && !label.description().isBlank()) {
+                    labels.add(label);
+                }
+            }
+        }
+
+        // The first text annotation is the whole text block; the rest are the individual words
+        List<EntityAnnotation> text = response.textAnnotations();
+        if (text != null && !text.isEmpty()) {
+            for (EntityAnnotation word : text.size() > 1 ? text.subList(1, text.size()) : text) {
+                if (word.description() != null && !word.description().isBlank()) {
+                    labels.add(new EntityAnnotation(word.description().trim().toLowerCase(), 0.9f));
+                }
+            }
+        }
+        return labels;
+    }
+
+    @Override
+    public boolean isSaturated() {
+        return bulkhead.getMetrics().getAvailableConcurrentCalls() == 0;
+    }
+}
@@ -0,0 +1,256 @@
+package com.lostfound.service;
+
+import com.lostfound.model.Item;
+import com.lostfound.model.Status;
+import com.lostfound.repository.ItemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Semantic matching signal: one text embedding per item (title, description, category, AI labels),
+ * stored in item_embeddings and held in one HNSW index per status, so a LOST item's nearest
+ * FOUND items are an approximate nearest-neighbour lookup instead of a scan of the catalogue.
+ */
+@Service
+public class EmbeddingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingService.class);
+
+    private static final int CANDIDATES = 5;
+    private static final int BATCH_SIZE = 500;
+    // Rows are stamped when the statement runs but only visible at commit; syncs overlap by this much
+    private static final long SYNC_OVERLAP_MS = 60_000;
+
+    private static final String UPSERT = "INSERT INTO item_embeddings (item_id, model, vector, updated_at) " +
+            "VALUES (?, ?, ?, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (item_id) DO UPDATE SET model = EXCLUDED.model, vector = EXCLUDED.vector, " +
+            "updated_at = EXCLUDED.updated_at";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Value("${matching.embedding.model-path:}")
+    private String modelPath;
+
+    @Value("${matching.embedding.vocab-path:}")
+    private String vocabPath;
+
+    // Cosine similarity needed to count as a match; depends on the model in use
+    @Value("${matching.embedding.min-similarity:0.75}")
+    private float minSimilarity;
+
+    @Value("${matching.embedding.ef-search:64}")
+    private int efSearch;
+
+    // Share of removed/replaced nodes in an index above which it is rebuilt from the database
+    @Value("${matching.embedding.max-tombstone-ratio:0.2}")
+    private double maxTombstoneRatio;
+
+    private TextEmbedder embedder;
+    // Replaced as a whole by rebuild(), like ImageHashService's tree
+    private volatile Map<Status, HnswIndex> indexes = new ConcurrentHashMap<>();
+    // Database time at which the last rebuild or sync started; null until the first rebuild
+    private volatile Timestamp lastSync;
+
+    @PostConstruct
+    public void init() throws Exception {
+        embedder = new TextEmbedder(modelPath, vocabPath);
+        logger.info("Item embeddings use {}", embedder.getModelId());
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        embedder.close();
+    }
+
+    /**
+     * Builds fresh indexes from item_embeddings, computing any vectors that are missing or from
+     * another model, and swaps them in. Writes made meanwhile reach the new indexes with the next sync.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        Timestamp since = databaseTime();
+        int computed = embedMissing();
+        Map<Status, HnswIndex> rebuilt = new ConcurrentHashMap<>();
+        int loaded = load(rebuilt, null);
+        indexes = rebuilt;
+        lastSync = since;
+        logger.info("Embedding index built in {} ms ({} vectors, {} computed)",
+                System.currentTimeMillis() - started, loaded, computed);
+    }
+
+    /**
+     * Picks up vectors stored since the last sync, including those written by other instances, and
+     * rebuilds instead once removals and re-embeds have left too many tombstones in an index.
+     */
+    @Scheduled(fixedDelayString = "${matching.embedding.sync-interval-ms:60000}",
+               initialDelayString = "${matching.embedding.sync-interval-ms:60000}")
+    public synchronized void sync() {
+        Timestamp previous = lastSync;
+        if (previous == null || indexes.values().stream().anyMatch(this::needsCompaction)) {
+            rebuild();
+            return;
+        }
+        Timestamp since = databaseTime();
+        int loaded = load(indexes, new Timestamp(previous.getTime() - SYNC_OVERLAP_MS));
+        lastSync = since;
+        logger.debug("Embedding index synced, {} vectors changed", loaded);
+    }
+
+    private boolean needsCompaction(HnswIndex index) {
+        int tombstones = index.tombstones();
+        return tombstones > 0 && tombstones > maxTombstoneRatio * (index.size() + tombstones);
+    }
+
+    private Timestamp databaseTime() {
+        // updated_at is written with the database clock, so compare against that rather than ours
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", Timestamp.class);
+    }
+
+    // Embeds items that have no vector for the current model, a chunk of items and one batched upsert at a time
+    private int embedMissing() {
+        List<Long> missing = jdbcTemplate.queryForList("SELECT i.id FROM items i " +
+                "LEFT JOIN item_embeddings e ON e.item_id = i.id AND e.model = ? WHERE e.item_id IS NULL",
+                Long.class, embedder.getModelId());
+        int computed = 0;
+        for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>();
+            for (Item item : itemRepository.findAllWithLabelsByIdIn(missing.subList(i, Math.min(i + BATCH_SIZE, missing.size())))) {
+                try {
+                    rows.add(new Object[]{item.getId(), embedder.getModelId(), toBytes(embedder.embed(textOf(item)))});
+                } catch (Exception e) {
+                    logger.warn("Could not embed item {}: {}", item.getId(), e.getMessage());
+                }
+            }
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+            computed += rows.size();
+        }
+        return computed;
+    }
+
+    // Adds stored vectors (all, or those updated after since) to the given indexes; returns how many changed
+    private int load(Map<Status, HnswIndex> target, Timestamp since) {
+        String sql = "SELECT e.item_id, e.vector, i.status FROM item_embeddings e JOIN items i ON i.id = e.item_id " +
+                "WHERE e.model = ?";
+        Object[] args = since == null
+                ? new Object[]{embedder.getModelId()}
+                : new Object[]{embedder.getModelId(), since};
+        int[] changed = new int[1];
+        jdbcTemplate.query(since == null ? sql : sql + " AND e.updated_at > ?", rs -> {
+            if (index(target, rs.getLong(1), Status.valueOf(rs.getString(3)), fromBytes(rs.getBytes(2)))) {
+                changed[0]++;
+            }
+        }, args);
+        return changed[0];
+    }
+
+    /**
+     * (Re)embeds the items, e.g. after their AI labels arrived, and returns item id -> vector.
+     * Items that fail to embed are left out; matching then relies on the other signals.
+     */
+    public Map<Long, float[]> update(List<Item> items) {
+        Map<Long, float[]> vectors = new HashMap<>();
+        for (Item item : items) {
+            try {
+                float[] vector = embedAndStore(item);
+                index(indexes, item.getId(), item.getStatus(), vector);
+                vectors.put(item.getId(), vector);
+            } catch (Exception e) {
+                logger.warn("Could not embed item {}: {}", item.getId(), e.getMessage());
+            }
+        }
+        return vectors;
+    }
+
+    // An unchanged vector is left in place; replacing it would only add a tombstone
+    private boolean index(Map<Status, HnswIndex> target, long itemId, Status status, float[] vector) {
+        target.forEach((s, index) -> {
+            if (s != status) {
+                index.remove(itemId);
+            }
+        });
+        HnswIndex index = target.computeIfAbsent(status, s -> new HnswIndex(vector.length));
+        if (index.contains(itemId, vector)) {
+            return false;
+        }
+        index.add(itemId, vector);
+        return true;
+    }
+
+    public void remove(Long itemId) {
+        indexes.values().forEach(index -> index.remove(itemId));
+    }
+
+    /**
+     * Items of any other status whose embedding is within min-similarity of this one, closest first.
+     */
+    public List<Long> findSimilarItems(Item item, float[] vector) {
+        List<HnswIndex.Result> results = new ArrayList<>();
+        indexes.forEach((status, index) -> {
+            if (status != item.getStatus()) {
+                results.addAll(index.search(vector, CANDIDATES, efSearch));
+            }
+        });
+        results.sort((a, b) -> Float.compare(b.similarity, a.similarity));
+
+        List<Long> ids = new ArrayList<>();
+        for (HnswIndex.Result result : results) {
+            if (result.similarity >= minSimilarity && result.key != item.getId()) {
+                ids.add(result.key);
+            }
+        }
+        return ids;
+    }
+
+    private float[] embedAndStore(Item item) throws Exception {
+        float[] vector = embedder.embed(textOf(item));
+        jdbcTemplate.update(UPSERT, item.getId(), embedder.getModelId(), toBytes(vector));
+        return vector;
+    }
+
+    static String textOf(Item item) {
+        StringBuilder text = new StringBuilder();
+        text.append(item.getTitle());
+        if (item.getDescription() != null) text.append(". ").append(item.getDescription());
+        if (item.getCategory() != null) text.append(". ").append(item.getCategory());
+        if (item.getAiDetectedColors() != null) text.append(". ").append(item.getAiDetectedColors());
+        if (item.getAiLabels() != null && !item.getAiLabels().isEmpty()) {
+            text.append(". ").append(String.join(", ", item.getAiLabels()));
+        }
+        return text.toString();
+    }
+
+    private static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    private static float[] fromBytes(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
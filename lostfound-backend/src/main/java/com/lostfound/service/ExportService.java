@@ -0,0 +1,209 @@
+package com.lostfound.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams items and messages straight from a JDBC cursor to the response, one row at a time,
+ * so heap usage does not depend on how many rows are exported.
+ * Rows are ordered by id; the id of the last row received is the resume token for the next call.
+ */
+@Service
+public class ExportService {
+
+    // Postgres only uses a server-side cursor when a fetch size is set inside a transaction
+    private static final int FETCH_SIZE = 500;
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public void exportItems(Format format, LocalDateTime from, LocalDateTime to, Long after, OutputStream out) {
+        String sql = "SELECT i.id, i.title, i.category, i.status, i.location, i.\"date\" AS date, " +
+                "i.description, i.contactInfo AS contact_info, i.user_id, i.imageUrl AS image_url, " +
+                "i.aiMatched AS ai_matched, i.matchedItemId AS matched_item_id, " +
+                "i.ai_detected_category, i.ai_confidence_score, i.ai_detected_colors, i.ai_detected_brands " +
+                "FROM items i WHERE i.id > ?";
+        List<Object> args = new ArrayList<>();
+        args.add(after != null ? after : 0L);
+        if (from != null) {
+            sql += " AND i.\"date\" >= ?";
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql += " AND i.\"date\" < ?";
+            args.add(Timestamp.valueOf(to));
+        }
+        stream(sql + " ORDER BY i.id", args, format, out);
+    }
+
+    public void exportMessages(Format format, LocalDateTime from, LocalDateTime to, Long after, OutputStream out) {
+        String sql = "SELECT m.id, m.sender_id, m.receiver_id, m.item_id, m.created_at, m.\"read\" AS read, m.content " +
+                "FROM messages m WHERE m.id > ?";
+        List<Object> args = new ArrayList<>();
+        args.add(after != null ? after : 0L);
+        if (from != null) {
+            sql += " AND m.created_at >= ?";
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql += " AND m.created_at < ?";
+            args.add(Timestamp.valueOf(to));
+        }
+        stream(sql + " ORDER BY m.id", args, format, out);
+    }
+
+    private void stream(String sql, List<Object> args, Format format, OutputStream out) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> {
+            JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+            cursor.setFetchSize(FETCH_SIZE);
+            try (RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out)) {
+                // An extractor rather than a row callback: the metadata (CSV header) is written even with no rows
+                cursor.query(sql, (ResultSetExtractor<Void>) rs -> {
+                    try {
+                        writer.start(rs.getMetaData());
+                        while (rs.next()) {
+                            writer.write(rs);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return null;
+                }, args.toArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static Object columnValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toString();
+        }
+        return value;
+    }
+
+    private interface RowWriter extends AutoCloseable {
+        // Before the first row, also when there are none
+        default void start(ResultSetMetaData meta) throws SQLException, IOException {
+        }
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            ResultSetMetaData meta = rs.getMetaData();
+            generator.writeStartObject();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                generator.writeFieldName(meta.getColumnLabel(i));
+                generator.writeObject(columnValue(rs, i));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) {
+            this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void start(ResultSetMetaData meta) throws SQLException, IOException {
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                writeCell(i, meta.getColumnLabel(i));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                Object value = columnValue(rs, i);
+                writeCell(i, value != null ? value.toString() : "");
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeCell(int column, String value) throws IOException {
+            if (column > 1) {
+                writer.write(',');
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.lostfound.service;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends through the FCM HTTP v1 API using the service account from Application Default Credentials.
+ * The RestTemplate comes from NotificationConfig with connect and read timeouts, so a stalled FCM
+ * endpoint can't hold up the single sender thread.
+ */
+public class FcmPushProvider implements PushProvider {
+
+    private static final String SCOPE = "https://www.googleapis.com/auth/firebase.messaging";
+
+    private final String sendUrl;
+    private final GoogleCredentials credentials;
+    private final RestTemplate restTemplate;
+
+    public FcmPushProvider(String projectId, RestTemplate restTemplate) throws IOException {
+        this.restTemplate = restTemplate;
+        this.sendUrl = "https://fcm.googleapis.com/v1/projects/" + projectId + "/messages:send";
+        this.credentials = GoogleCredentials.getApplicationDefault().createScoped(List.of(SCOPE));
+    }
+
+    @Override
+    public void send(String deviceToken, PushNotification notification) throws Exception {
+        credentials.refreshIfExpired();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(credentials.getAccessToken().getTokenValue());
+
+        Map<String, Object> body = Map.of(
+            "message", Map.of(
+                "token", deviceToken,
+                "notification", Map.of("title", notification.getTitle(), "body", notification.getBody()),
+                "data", notification.getData()
+            )
+        );
+        try {
+            restTemplate.postForEntity(sendUrl, new HttpEntity<>(body, headers), Map.class);
+        } catch (HttpClientErrorException e) {
+            if (isInvalidToken(e)) {
+                throw new InvalidTokenException(e.getStatusCode() + " " + e.getResponseBodyAsString());
+            }
+            throw e;
+        }
+    }
+
+    // 404 UNREGISTERED: app uninstalled or token expired; 400 INVALID_ARGUMENT naming the token: malformed
+    private static boolean isInvalidToken(HttpClientErrorException e) {
+        String error = e.getResponseBodyAsString();
+        return e.getStatusCode().value() == 404 || error.contains("UNREGISTERED")
+                || (e.getStatusCode().value() == 400 && error.contains("registration token"));
+    }
+}
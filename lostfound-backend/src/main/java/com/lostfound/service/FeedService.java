@@ -0,0 +1,231 @@
+package com.lostfound.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lostfound.config.ReplicaRoutingDataSource;
+import com.lostfound.model.Item;
+import com.lostfound.model.Status;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read tier for the public feed: list, search and item detail are answered from an immutable
+ * snapshot of the catalogue, already serialised to JSON (and gzipped for the full list), so
+ * anonymous browsing is mostly a byte copy. The database is only touched to check the catalogue
+ * version (ItemService.getCatalogueETag: one small aggregate query on the primary, at most every
+ * catalogue.version-check-ms or after a local commit) and to rebuild the snapshot.
+ * The snapshot is rebuilt by one caller when that version moves (a committed write on any
+ * instance), or after feed.max-age-ms regardless; everyone else keeps reading the previous one meanwhile.
+ */
+@Service
+public class FeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedService.class);
+
+    private static final byte[] OPEN = {'['};
+    private static final byte[] SEPARATOR = {','};
+    private static final byte[] CLOSE = {']'};
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${feed.max-age-ms:30000}")
+    private long maxAgeMs;
+
+    private volatile Snapshot snapshot;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    public static class FeedItem {
+        private final Long id;
+        private final Status status;
+        private final String category;
+        private final String searchText;
+        private final byte[] json;
+        private final String eTag;
+
+        FeedItem(Item item, byte[] json, String eTag) {
+            this.id = item.getId();
+            this.status = item.getStatus();
+            this.category = item.getCategory();
+            this.searchText = String.join(" ", String.valueOf(item.getTitle()), String.valueOf(item.getDescription()),
+                    String.valueOf(item.getLocation()), String.valueOf(item.getCategory())).toLowerCase(Locale.ROOT);
+            this.json = json;
+            this.eTag = eTag;
+        }
+
+        public Long getId() { return id; }
+        public byte[] getJson() { return json; }
+        public String getETag() { return eTag; }
+    }
+
+    public static class Snapshot {
+        private final String catalogueVersion;
+        private final long builtAt;
+        private final List<FeedItem> items;
+        private final Map<Long, FeedItem> byId;
+        private final byte[] gzipped;
+        private final String eTag;
+
+        Snapshot(String catalogueVersion, List<FeedItem> items, byte[] gzipped, String eTag) {
+            this.catalogueVersion = catalogueVersion;
+            this.builtAt = System.currentTimeMillis();
+            this.items = items;
+            this.byId = new HashMap<>();
+            items.forEach(item -> byId.put(item.getId(), item));
+            this.gzipped = gzipped;
+            this.eTag = eTag;
+        }
+
+        public List<FeedItem> getItems() { return items; }
+        public byte[] getGzipped() { return gzipped; }
+
+        /**
+         * Derived from the content, so it also holds across instances and restarts.
+         */
+        public String getETag() { return eTag; }
+
+        boolean isFresh(String version, long maxAgeMs) {
+            return catalogueVersion.equals(version) && System.currentTimeMillis() - builtAt < maxAgeMs;
+        }
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        String version = itemService.getCatalogueETag();
+        if (current != null && current.isFresh(version, maxAgeMs)) {
+            return current;
+        }
+        if (current == null) {
+            rebuildLock.lock();
+        } else if (!rebuildLock.tryLock()) {
+            return current; // someone else is rebuilding; the previous snapshot is good enough meanwhile
+        }
+        try {
+            current = snapshot;
+            if (current == null || !current.isFresh(version, maxAgeMs)) {
+                current = build(version);
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public Optional<FeedItem> findItem(Long id) {
+        return Optional.ofNullable(current().byId.get(id));
+    }
+
+    /**
+     * Items whose title, description, location or category contain every word of the query.
+     */
+    public List<FeedItem> search(String query, Status status, String category, int limit) {
+        String[] words = query == null || query.isBlank()
+                ? new String[0]
+                : query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+        List<FeedItem> found = new ArrayList<>();
+        for (FeedItem item : current().items) {
+            if (found.size() >= limit) {
+                break;
+            }
+            if ((status == null || item.status == status)
+                    && (category == null || category.equalsIgnoreCase(item.category))
+                    && containsAll(item.searchText, words)) {
+                found.add(item);
+            }
+        }
+        return found;
+    }
+
+    private static boolean containsAll(String text, String[] words) {
+        for (String word : words) {
+            if (!text.contains(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes items as a JSON array from their pre-serialised bytes.
+     */
+    public static void writeArray(List<FeedItem> items, OutputStream out) throws IOException {
+        out.write(OPEN);
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.write(SEPARATOR);
+            }
+            out.write(items.get(i).json);
+        }
+        out.write(CLOSE);
+    }
+
+    private Snapshot build(String version) {
+        long started = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        // Primary: rebuilds usually follow a local write, which a lagging replica might not have yet
+        List<FeedItem> items = ReplicaRoutingDataSource.onPrimary(() -> tx.execute(status -> {
+            List<FeedItem> serialised = new ArrayList<>();
+            for (Item item : itemService.findAll()) {
+                Hibernate.initialize(item.getAiLabels());
+                try {
+                    serialised.add(new FeedItem(item, objectMapper.writeValueAsBytes(item), itemService.getItemETag(item)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return serialised;
+        }));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        CRC32 crc = new CRC32();
+        try (OutputStream gzip = new GZIPOutputStream(compressed)) {
+            writeArray(items, new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    crc.update(b);
+                    gzip.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    crc.update(b, off, len);
+                    gzip.write(b, off, len);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String eTag = "\"feed-" + Long.toHexString(crc.getValue()) + "-" + items.size() + "\"";
+        logger.debug("Feed snapshot rebuilt: {} items, {} KB gzipped, {} ms",
+                items.size(), compressed.size() / 1024, System.currentTimeMillis() - started);
+        return new Snapshot(version, Collections.unmodifiableList(items), compressed.toByteArray(), eTag);
+    }
+}
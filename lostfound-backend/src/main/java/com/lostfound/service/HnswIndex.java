@@ -0,0 +1,322 @@
+package com.lostfound.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest-neighbour index over normalised vectors (Hierarchical Navigable Small World).
+ * Vectors live in one off-heap buffer and the graph in primitive int arrays, so the index adds
+ * little to GC work however many items it holds. Similarity is the dot product (cosine for unit vectors).
+ * Removal only hides a node from results; it keeps routing searches until EmbeddingService
+ * rebuilds the index (see matching.embedding.max-tombstone-ratio).
+ */
+class HnswIndex {
+
+    private static final int M = 16;
+    private static final int M0 = 2 * M;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final double LEVEL_FACTOR = 1 / Math.log(M);
+
+    private final int dimensions;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FloatBuffer vectors;
+    private int size;
+    private long[] keys = new long[64];
+    // links.get(node)[level] = neighbour node numbers
+    private final List<int[][]> links = new ArrayList<>();
+    private final BitSet deleted = new BitSet();
+    private final Map<Long, Integer> nodeByKey = new HashMap<>();
+
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    static class Result {
+        final long key;
+        final float similarity;
+
+        Result(long key, float similarity) {
+            this.key = key;
+            this.similarity = similarity;
+        }
+    }
+
+    HnswIndex(int dimensions) {
+        this.dimensions = dimensions;
+        this.vectors = allocate(64);
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Live entries.
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removed or replaced nodes still in the graph; only a rebuild gets rid of them.
+     */
+    int tombstones() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether key is stored with exactly this vector, in which case adding it again would only leave a tombstone.
+     */
+    boolean contains(long key, float[] vector) {
+        lock.readLock().lock();
+        try {
+            Integer node = nodeByKey.get(key);
+            if (node == null || vector.length != dimensions) {
+                return false;
+            }
+            int offset = node * dimensions;
+            for (int d = 0; d < dimensions; d++) {
+                if (vectors.get(offset + d) != vector[d]) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the vector stored under key.
+     */
+    void add(long key, float[] vector) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = nodeByKey.get(key);
+            if (previous != null) {
+                deleted.set(previous);
+            }
+            int node = append(key, vector);
+            nodeByKey.put(key, node);
+            connect(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeByKey.remove(key);
+            if (node != null) {
+                deleted.set(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to k live entries closest to the query, most similar first. ef trades latency for recall.
+     */
+    List<Result> search(float[] query, int k, int ef) {
+        lock.readLock().lock();
+        try {
+            List<Result> results = new ArrayList<>();
+            if (entryPoint < 0) {
+                return results;
+            }
+            int current = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedyClosest(query, current, level);
+            }
+            // Deleted nodes still occupy slots in the beam, so widen it by up to as many again
+            PriorityQueue<Integer> nearest = searchLayer(query, current, Math.max(ef, k) + Math.min(deleted.cardinality(), ef), 0);
+            List<Integer> ordered = new ArrayList<>(nearest);
+            ordered.sort(Comparator.comparingDouble(n -> -similarity(query, n)));
+            for (int node : ordered) {
+                if (deleted.get(node)) continue;
+                results.add(new Result(keys[node], similarity(query, node)));
+                if (results.size() == k) break;
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int append(long key, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        if (size == keys.length) {
+            FloatBuffer grown = allocate(size * 2);
+            vectors.position(0).limit(size * dimensions);
+            grown.put(vectors);
+            vectors = grown.clear();
+            long[] grownKeys = new long[size * 2];
+            System.arraycopy(keys, 0, grownKeys, 0, size);
+            keys = grownKeys;
+        }
+        int node = size++;
+        keys[node] = key;
+        for (int d = 0; d < dimensions; d++) {
+            vectors.put(node * dimensions + d, vector[d]);
+        }
+        return node;
+    }
+
+    private void connect(int node) {
+        int level = (int) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * LEVEL_FACTOR);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            nodeLinks[l] = new int[0];
+        }
+        links.add(nodeLinks);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = vectorOf(node);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(query, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            PriorityQueue<Integer> candidates = searchLayer(query, current, EF_CONSTRUCTION, l);
+            List<Integer> closest = new ArrayList<>(candidates);
+            closest.sort(Comparator.comparingDouble(n -> -similarity(query, n)));
+            int[] neighbours = closest.subList(0, Math.min(M, closest.size())).stream().mapToInt(Integer::intValue).toArray();
+            links.get(node)[l] = neighbours;
+            for (int neighbour : neighbours) {
+                addLink(neighbour, node, l);
+            }
+            current = closest.get(0);
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    // Adds a back link, keeping only the closest neighbours once the node is full
+    private void addLink(int from, int to, int level) {
+        int[] existing = links.get(from)[level];
+        int max = level == 0 ? M0 : M;
+        int[] updated = new int[existing.length + 1];
+        System.arraycopy(existing, 0, updated, 0, existing.length);
+        updated[existing.length] = to;
+        if (updated.length > max) {
+            float[] base = vectorOf(from);
+            updated = Arrays.stream(updated).boxed()
+                    .sorted(Comparator.comparingDouble(n -> -similarity(base, n)))
+                    .limit(max)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        links.get(from)[level] = updated;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float best = similarity(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : neighboursOf(current, level)) {
+                float s = similarity(query, neighbour);
+                if (s > best) {
+                    best = s;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Beam search on one layer; returns up to ef nodes as a min-heap on similarity
+    private PriorityQueue<Integer> searchLayer(float[] query, int start, int ef, int level) {
+        Map<Integer, Float> scores = new HashMap<>();
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Integer> candidates = new PriorityQueue<>(Comparator.comparingDouble(n -> -scores.get(n)));
+        PriorityQueue<Integer> found = new PriorityQueue<>(Comparator.comparingDouble(scores::get));
+
+        scores.put(start, similarity(query, start));
+        visited.set(start);
+        candidates.add(start);
+        found.add(start);
+
+        while (!candidates.isEmpty()) {
+            int candidate = candidates.poll();
+            if (found.size() >= ef && scores.get(candidate) < scores.get(found.peek())) {
+                break;
+            }
+            for (int neighbour : neighboursOf(candidate, level)) {
+                if (visited.get(neighbour)) continue;
+                visited.set(neighbour);
+                float s = similarity(query, neighbour);
+                if (found.size() < ef || s > scores.get(found.peek())) {
+                    scores.put(neighbour, s);
+                    candidates.add(neighbour);
+                    found.add(neighbour);
+                    if (found.size() > ef) {
+                        found.poll();
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int[] neighboursOf(int node, int level) {
+        int[][] nodeLinks = links.get(node);
+        return level < nodeLinks.length ? nodeLinks[level] : new int[0];
+    }
+
+    private float similarity(float[] query, int node) {
+        int offset = node * dimensions;
+        float dot = 0;
+        for (int d = 0; d < dimensions; d++) {
+            dot += query[d] * vectors.get(offset + d);
+        }
+        return dot;
+    }
+
+    private float[] vectorOf(int node) {
+        float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            vector[d] = vectors.get(node * dimensions + d);
+        }
+        return vector;
+    }
+
+    private FloatBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * dimensions * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+}
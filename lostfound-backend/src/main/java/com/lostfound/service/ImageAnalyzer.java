@@ -0,0 +1,36 @@
+package com.lostfound.service;
+
+import com.lostfound.dto.VisionResponse.ColorInfo;
+import com.lostfound.dto.VisionResponse.EntityAnnotation;
+
+import java.util.List;
+
+/**
+ * Image recognition SPI behind VisionService. Implementations only produce raw labels and dominant
+ * colors; VisionService turns them into a category, brands and color names.
+ */
+public interface ImageAnalyzer {
+
+    Analysis analyze(String imagePath) throws Exception;
+
+    /**
+     * True while a new call would be rejected or queued behind a full backlog; used to shed load early.
+     */
+    default boolean isSaturated() {
+        return false;
+    }
+
+    class Analysis {
+        private final List<EntityAnnotation> labels;
+        private final List<ColorInfo> dominantColors;
+
+        public Analysis(List<EntityAnnotation> labels, List<ColorInfo> dominantColors) {
+            this.labels = labels;
+            this.dominantColors = dominantColors;
+        }
+
+        // Highest confidence first
+        public List<EntityAnnotation> getLabels() { return labels; }
+        public List<ColorInfo> getDominantColors() { return dominantColors; }
+    }
+}
@@ -0,0 +1,290 @@
+package com.lostfound.service;
+
+import com.lostfound.model.Item;
+import com.lostfound.model.ItemImage;
+import com.lostfound.model.Status;
+import com.lostfound.model.User;
+import com.lostfound.repository.ItemImageRepository;
+import com.lostfound.repository.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Perceptual (difference) hashes of item photos. Two photos of the same object hash to nearby
+ * values, so the Hamming distance between hashes finds re-uploads and visually similar items.
+ * All hashes are kept in an in-memory BK-tree, which answers "everything within distance d"
+ * without comparing against every stored image.
+ */
+@Service
+public class ImageHashService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageHashService.class);
+
+    // dHash compares each pixel of a 9x8 grayscale thumbnail with its right neighbour: 64 bits
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    @Autowired
+    private ItemImageRepository itemImageRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    // At or below this distance an upload is treated as the same photo
+    @Value("${images.phash.duplicate-distance:4}")
+    private int duplicateDistance;
+
+    // At or below this distance a LOST/FOUND pair is matched on the photos alone
+    @Value("${images.phash.match-distance:10}")
+    private int matchDistance;
+
+    private volatile BkTree index = new BkTree();
+
+    /**
+     * 64-bit difference hash; computed by ImageIngestService on every normalised upload.
+     */
+    static long dHash(BufferedImage image) {
+        BufferedImage thumbnail = new BufferedImage(HASH_WIDTH, HASH_HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            // Area averaging so the thumbnail reflects the whole image, not a few sampled pixels
+            graphics.drawImage(image.getScaledInstance(HASH_WIDTH, HASH_HEIGHT, Image.SCALE_AREA_AVERAGING), 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        long hash = 0;
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+            for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                int left = thumbnail.getRaster().getSample(x, y, 0);
+                int right = thumbnail.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Rebuilds the index from the database; also picks up images written by other instances.
+     */
+    @Scheduled(fixedDelayString = "${images.phash.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        BkTree rebuilt = new BkTree();
+        for (Object[] row : itemImageRepository.findAllHashes()) {
+            rebuilt.add((Long) row[0], (Long) row[1]);
+        }
+        index = rebuilt;
+        logger.info("Image hash index rebuilt with {} items", rebuilt.itemCount());
+    }
+
+    /**
+     * Adds the item's image hashes to the index once the surrounding transaction commits.
+     */
+    public void indexAfterCommit(Item item) {
+        if (item.getImages() == null || item.getImages().isEmpty()) {
+            return;
+        }
+        Long itemId = item.getId();
+        List<Long> hashes = new ArrayList<>();
+        for (ItemImage image : item.getImages()) {
+            if (image.getPerceptualHash() != null) {
+                hashes.add(image.getPerceptualHash());
+            }
+        }
+        if (hashes.isEmpty()) {
+            return;
+        }
+        Runnable add = () -> hashes.forEach(hash -> index.add(itemId, hash));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add.run();
+                }
+            });
+        } else {
+            add.run();
+        }
+    }
+
+    public void remove(Long itemId) {
+        index.remove(itemId);
+    }
+
+    /**
+     * An existing item of the same reporter and status with a near-identical photo, if any.
+     */
+    public Optional<Item> findDuplicate(User user, Status status, Collection<Long> hashes) {
+        Set<Long> candidates = new LinkedHashSet<>();
+        for (Long hash : hashes) {
+            candidates.addAll(index.search(hash, duplicateDistance).keySet());
+        }
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+        return itemRepository.findAllById(candidates).stream()
+                .filter(item -> item.getStatus() == status
+                        && item.getUser() != null && item.getUser().getId().equals(user.getId()))
+                .findFirst();
+    }
+
+    /**
+     * Other items whose photos are within the match distance of this item's photos, closest first.
+     */
+    public List<Long> findSimilarItems(Long itemId) {
+        BkTree current = index;
+        Map<Long, Integer> closest = new HashMap<>();
+        for (long hash : current.hashesOf(itemId)) {
+            current.search(hash, matchDistance).forEach((id, distance) -> closest.merge(id, distance, Math::min));
+        }
+        closest.remove(itemId);
+        List<Long> ids = new ArrayList<>(closest.keySet());
+        ids.sort((a, b) -> Integer.compare(closest.get(a), closest.get(b)));
+        return ids;
+    }
+
+    /**
+     * BK-tree over 64-bit hashes with Hamming distance. Each child edge is labelled with its
+     * distance to the parent, so a search for radius r only descends into edges d-r..d+r.
+     */
+    private static class BkTree {
+        private Node root;
+        private final Map<Long, List<Long>> hashesByItem = new HashMap<>();
+        // Searches run concurrently; a read-write lock rather than synchronized also keeps virtual
+        // threads from pinning their carrier while they wait
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private static class Node {
+            final long hash;
+            final Set<Long> itemIds = new HashSet<>();
+            final Map<Integer, Node> children = new HashMap<>();
+
+            Node(long hash) {
+                this.hash = hash;
+            }
+        }
+
+        void add(Long itemId, long hash) {
+            lock.writeLock().lock();
+            try {
+                hashesByItem.computeIfAbsent(itemId, id -> new ArrayList<>()).add(hash);
+                if (root == null) {
+                    root = new Node(hash);
+                }
+                Node node = root;
+                while (true) {
+                    int distance = Long.bitCount(node.hash ^ hash);
+                    if (distance == 0) {
+                        node.itemIds.add(itemId);
+                        return;
+                    }
+                    Node child = node.children.get(distance);
+                    if (child == null) {
+                        child = new Node(hash);
+                        child.itemIds.add(itemId);
+                        node.children.put(distance, child);
+                        return;
+                    }
+                    node = child;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Nodes stay in place (they route searches); the next rebuild drops the empty ones
+        void remove(Long itemId) {
+            lock.writeLock().lock();
+            try {
+                List<Long> hashes = hashesByItem.remove(itemId);
+                if (hashes == null) {
+                    return;
+                }
+                for (long hash : hashes) {
+                    Node node = root;
+                    while (node != null) {
+                        int distance = Long.bitCount(node.hash ^ hash);
+                        if (distance == 0) {
+                            node.itemIds.remove(itemId);
+                            break;
+                        }
+                        node = node.children.get(distance);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<Long> hashesOf(Long itemId) {
+            lock.readLock().lock();
+            try {
+                return new ArrayList<>(hashesByItem.getOrDefault(itemId, List.of()));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int itemCount() {
+            lock.readLock().lock();
+            try {
+                return hashesByItem.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // item id -> smallest distance found
+        Map<Long, Integer> search(long hash, int maxDistance) {
+            lock.readLock().lock();
+            try {
+                Map<Long, Integer> found = new HashMap<>();
+                if (root == null) {
+                    return found;
+                }
+                Deque<Node> pending = new ArrayDeque<>();
+                pending.push(root);
+                while (!pending.isEmpty()) {
+                    Node node = pending.pop();
+                    int distance = Long.bitCount(node.hash ^ hash);
+                    if (distance <= maxDistance) {
+                        for (Long itemId : node.itemIds) {
+                            found.merge(itemId, distance, Math::min);
+                        }
+                    }
+                    for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                        if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                            pending.push(child.getValue());
+                        }
+                    }
+                }
+                return found;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
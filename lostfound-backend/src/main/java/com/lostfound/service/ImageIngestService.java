@@ -0,0 +1,368 @@
+package com.lostfound.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every uploaded image passes through here before it is stored. The format is sniffed from the
+ * magic bytes (the client's Content-Type and filename are ignored), the header is checked against
+ * pixel limits before any decoding, and large images are subsampled while decoding so the raster
+ * never gets much bigger than the output. The result is re-encoded from pixels — JPEG, or PNG when
+ * there is transparency — with EXIF orientation applied and all metadata (GPS included) dropped.
+ * Decoding runs on a small bounded pool, so a burst of large uploads queues or is refused instead
+ * of exhausting the heap.
+ */
+@Service
+public class ImageIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageIngestService.class);
+
+    private static final int EXIF_ORIENTATION = 0x0112;
+
+    @Value("${images.ingest.max-bytes:10485760}")
+    private long maxBytes;
+
+    // Checked from the header, before decoding; guards against decompression bombs
+    @Value("${images.ingest.max-pixels:50000000}")
+    private long maxPixels;
+
+    // Long edge of the stored image
+    @Value("${images.ingest.max-dimension:1600}")
+    private int maxDimension;
+
+    @Value("${images.ingest.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Value("${images.ingest.threads:2}")
+    private int threads;
+
+    @Value("${images.ingest.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${images.ingest.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        // AbortPolicy: a full queue turns into a 503 rather than more decoded rasters on the heap
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "image-ingest-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public static class Ingested {
+        private final byte[] data;
+        private final String extension;
+        private final long perceptualHash;
+
+        Ingested(byte[] data, String extension, long perceptualHash) {
+            this.data = data;
+            this.extension = extension;
+            this.perceptualHash = perceptualHash;
+        }
+
+        public byte[] getData() { return data; }
+        public String getExtension() { return extension; }
+        public long getPerceptualHash() { return perceptualHash; }
+    }
+
+    /**
+     * Validates and normalises one image (the stream is read, not closed).
+     *
+     * @throws IllegalArgumentException if the content is not an acceptable image
+     * @throws ResponseStatusException 503 when the ingest pool is saturated or the image isn't done within the timeout
+     */
+    public Ingested ingest(InputStream content) throws IOException {
+        byte[] data = content.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxBytes + 1));
+        if (data.length > maxBytes) {
+            throw new IllegalArgumentException("Image is larger than " + (maxBytes / (1024 * 1024)) + "MB");
+        }
+        String format = sniff(data);
+        if (format == null) {
+            throw new IllegalArgumentException("File is not a supported image (JPEG, PNG, GIF or BMP)");
+        }
+
+        Future<Ingested> future;
+        try {
+            future = executor.submit(() -> normalise(data, format));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Image ingest queue full ({} waiting), rejecting upload", executor.getQueue().size());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many image uploads in progress, try again shortly");
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException cause) {
+                throw cause;
+            }
+            throw new IOException("Image processing failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            // The timeout includes time spent queued behind other uploads, so this is load, not a bad image
+            future.cancel(true);
+            logger.warn("Image ingest timed out after {} ms ({} waiting)", timeoutMs, executor.getQueue().size());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Image processing is taking too long, try again shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing image", e);
+        }
+    }
+
+    // Format from the leading bytes; only formats the JDK can decode are accepted
+    static String sniff(byte[] data) {
+        if (startsWith(data, 0xFF, 0xD8, 0xFF)) {
+            return "jpeg";
+        }
+        if (startsWith(data, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(data, 'G', 'I', 'F', '8') && data.length > 5 && (data[4] == '7' || data[4] == '9') && data[5] == 'a') {
+            return "gif";
+        }
+        if (startsWith(data, 'B', 'M')) {
+            return "bmp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Ingested normalise(byte[] data, String format) throws IOException {
+        BufferedImage decoded = decode(data, format);
+        BufferedImage image = orient(fit(decoded), "jpeg".equals(format) ? exifOrientation(data) : 1);
+        boolean alpha = image.getColorModel().hasAlpha();
+        byte[] encoded = alpha ? encodePng(image) : encodeJpeg(image);
+        return new Ingested(encoded, alpha ? ".png" : ".jpg", ImageHashService.dHash(image));
+    }
+
+    private BufferedImage decode(byte[] data, String format) throws IOException {
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format: " + format);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true); // ignoreMetadata: we never look at it
+                // Header only; nothing has been decompressed yet
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image dimensions " + width + "x" + height + " exceed the limit");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Keep every n-th pixel while decoding, so the raster is at most ~2x the output size
+                int step = Math.max(1, Math.max(width, height) / maxDimension);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } catch (IOException | RuntimeException e) {
+                if (e instanceof IllegalArgumentException) {
+                    throw e;
+                }
+                throw new IllegalArgumentException("Image could not be decoded: " + e.getMessage());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Scales down to maxDimension on the long edge and settles on an RGB or ARGB raster
+    private BufferedImage fit(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        if (scale == 1.0 && image.getType() == type) {
+            return image;
+        }
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Applies an EXIF orientation (1-8) so the stored pixels are upright without the tag
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        int outWidth = swap ? h : w;
+        int outHeight = swap ? w : h;
+        int[] source = image.getRGB(0, 0, w, h, null, 0, w);
+        int[] target = new int[source.length];
+        for (int y = 0; y < outHeight; y++) {
+            for (int x = 0; x < outWidth; x++) {
+                int sx;
+                int sy;
+                switch (orientation) {
+                    case 2 -> { sx = w - 1 - x; sy = y; }
+                    case 3 -> { sx = w - 1 - x; sy = h - 1 - y; }
+                    case 4 -> { sx = x; sy = h - 1 - y; }
+                    case 5 -> { sx = y; sy = x; }
+                    case 6 -> { sx = y; sy = h - 1 - x; }
+                    case 7 -> { sx = w - 1 - y; sy = h - 1 - x; }
+                    default -> { sx = w - 1 - y; sy = x; } // 8
+                }
+                target[y * outWidth + x] = source[sy * w + sx];
+            }
+        }
+        BufferedImage rotated = new BufferedImage(outWidth, outHeight, image.getType());
+        rotated.setRGB(0, 0, outWidth, outHeight, target, 0, outWidth);
+        return rotated;
+    }
+
+    /**
+     * EXIF orientation tag of a JPEG, or 1 (upright) if absent or unreadable. Walks the marker
+     * segments up to the start of scan and reads IFD0 of the APP1 "Exif" segment.
+     */
+    static int exifOrientation(byte[] jpeg) {
+        int i = 2;
+        while (i + 4 <= jpeg.length && (jpeg[i] & 0xFF) == 0xFF) {
+            int marker = jpeg[i + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                break; // start of scan / end of image: no more metadata
+            }
+            int length = readShort(jpeg, i + 2, false);
+            if (length < 2) {
+                break;
+            }
+            int segment = i + 4;
+            if (marker == 0xE1 && segment + 6 <= jpeg.length
+                    && jpeg[segment] == 'E' && jpeg[segment + 1] == 'x' && jpeg[segment + 2] == 'i'
+                    && jpeg[segment + 3] == 'f' && jpeg[segment + 4] == 0 && jpeg[segment + 5] == 0) {
+                return tiffOrientation(jpeg, segment + 6, Math.min(jpeg.length, i + 2 + length));
+            }
+            i += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int tiffOrientation(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        boolean little = data[tiff] == 'I' && data[tiff + 1] == 'I';
+        if (!little && !(data[tiff] == 'M' && data[tiff + 1] == 'M')) {
+            return 1;
+        }
+        long ifd = readInt(data, tiff + 4, little);
+        if (ifd < 8 || tiff + ifd + 2 > end) {
+            return 1;
+        }
+        int entries = tiff + (int) ifd;
+        int count = readShort(data, entries, little);
+        for (int e = 0; e < count; e++) {
+            int entry = entries + 2 + e * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (readShort(data, entry, little) == EXIF_ORIENTATION) {
+                int orientation = readShort(data, entry + 8, little);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] data, int offset, boolean little) {
+        int a = data[offset] & 0xFF;
+        int b = data[offset + 1] & 0xFF;
+        return little ? (b << 8) | a : (a << 8) | b;
+    }
+
+    private static long readInt(byte[] data, int offset, boolean little) {
+        long value = 0;
+        for (int k = 0; k < 4; k++) {
+            int b = data[offset + (little ? 3 - k : k)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", out)) {
+            throw new IOException("No PNG encoder available");
+        }
+        return out.toByteArray();
+    }
+}
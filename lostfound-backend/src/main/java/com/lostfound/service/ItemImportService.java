@@ -0,0 +1,135 @@
+package com.lostfound.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lostfound.dto.ItemImportDTO;
+import com.lostfound.model.Item;
+import com.lostfound.model.ItemImage;
+import com.lostfound.model.Status;
+import com.lostfound.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Bulk import of lost-and-found registers: NDJSON rows plus an optional zip of images.
+ * Rows are validated up front and inserted in JDBC-batched chunks. Vision analysis and matching
+ * are left to the outbox, so they are retried like those of items created one at a time.
+ */
+@Service
+public class ItemImportService {
+
+    // Matches hibernate.jdbc.batch_size so each chunk is flushed as full batches
+    private static final int CHUNK_SIZE = 50;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UploadService uploadService;
+
+    public int importItems(MultipartFile rowsFile, MultipartFile imagesZip, User owner) throws IOException {
+        Map<String, Long> hashesByUrl = new HashMap<>();
+        Map<String, String> imageUrls = imagesZip != null && !imagesZip.isEmpty()
+                ? extractImages(imagesZip, hashesByUrl)
+                : Map.of();
+
+        // Parse and validate every row before writing anything
+        List<Item> items = new ArrayList<>();
+        try (MappingIterator<ItemImportDTO> rows = objectMapper.readerFor(ItemImportDTO.class)
+                .readValues(rowsFile.getInputStream())) {
+            int line = 0;
+            while (rows.hasNext()) {
+                line++;
+                items.add(toItem(rows.next(), line, owner, imageUrls, hashesByUrl));
+            }
+        }
+
+        List<Item> saved = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i += CHUNK_SIZE) {
+            saved.addAll(itemService.saveBatch(items.subList(i, Math.min(i + CHUNK_SIZE, items.size()))));
+        }
+        // Analysis and matching run through the outbox (see ItemService.saveBatch), with retries
+        return saved.size();
+    }
+
+    private Item toItem(ItemImportDTO row, int line, User owner, Map<String, String> imageUrls,
+                        Map<String, Long> hashesByUrl) {
+        if (row.getTitle() == null || row.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Line " + line + ": title is required");
+        }
+        if (row.getStatus() == null || row.getDate() == null || row.getDate().length() < 19) {
+            throw new IllegalArgumentException("Line " + line + ": status and date are required");
+        }
+
+        Item item = new Item();
+        item.setTitle(row.getTitle());
+        try {
+            item.setStatus(Status.valueOf(row.getStatus().toUpperCase()));
+            item.setDate(LocalDateTime.parse(row.getDate().substring(0, 19)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Line " + line + ": invalid status or date");
+        }
+        item.setCategory(row.getCategory() != null && !row.getCategory().trim().isEmpty() ? row.getCategory() : "Other");
+        item.setLocation(row.getLocation());
+        item.setDescription(row.getDescription());
+        item.setContactInfo(row.getContactInfo());
+        item.setUser(owner);
+
+        if (row.getImages() != null) {
+            int order = 0;
+            for (String name : row.getImages()) {
+                String imageUrl = imageUrls.get(name);
+                if (imageUrl == null) {
+                    throw new IllegalArgumentException("Line " + line + ": image " + name + " not found in zip");
+                }
+                boolean isPrimary = (order == 0);
+                ItemImage image = new ItemImage(item, imageUrl, isPrimary, order++);
+                image.setPerceptualHash(hashesByUrl.get(imageUrl));
+                item.addImage(image);
+                if (isPrimary) {
+                    item.setImageUrl(imageUrl);
+                }
+            }
+        }
+        return item;
+    }
+
+    // Stores each zip entry as an upload and returns entry name -> public URL; hashes are collected by URL
+    private Map<String, String> extractImages(MultipartFile imagesZip, Map<String, Long> hashesByUrl) throws IOException {
+        Map<String, String> urls = new HashMap<>();
+        try (InputStream in = imagesZip.getInputStream(); ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) continue;
+                // Entry paths are only used as lookup names; storage location comes from the content hash
+                String name = Paths.get(entry.getName()).getFileName().toString();
+                UploadService.StoredImage stored;
+                try {
+                    stored = uploadService.storeImage(UploadService.IMAGES, zip);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Zip entry " + entry.getName() + ": " + e.getMessage());
+                }
+                String url = stored.getUrl();
+                hashesByUrl.put(url, stored.getPerceptualHash());
+                urls.put(entry.getName(), url);
+                urls.putIfAbsent(name, url);
+            }
+        }
+        return urls;
+    }
+}
@@ -1,86 +1,247 @@
 package com.lostfound.service;
 
+import com.lostfound.config.CacheConfig;
+import com.lostfound.config.ReplicaRoutingDataSource;
 import com.lostfound.model.Item;
 import com.lostfound.model.Status;
 import com.lostfound.repository.ItemRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ItemService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ItemService.class);
+
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private ImageHashService imageHashService;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private UploadService uploadService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${catalogue.version-check-ms:2000}")
+    private long versionCheckMs;
+
+    // Last value of ItemRepository.catalogueVersion(), when it was read (System.nanoTime()) and how many
+    // local commits had happened by then; a commit since makes the next caller read it again
+    private volatile String catalogueVersion;
+    private volatile long catalogueCheckedAt;
+    private volatile long catalogueCheckedCommits;
+    private final AtomicLong catalogueCommits = new AtomicLong();
+    private final ReentrantLock catalogueCheckLock = new ReentrantLock();
+
+    // Common keywords checked in title and description when matching LOST against FOUND
+    private static final String[] MATCH_KEYWORDS = {"iphone", "samsung", "wallet", "keys", "bag", "laptop", "watch", "phone", "charger", "headphones", "earbuds", "airpods"};
+
+    /**
+     * Saves the item and records its follow-up work (Vision analysis, matching) in the outbox
+     * within the same transaction; OutboxWorker runs it after commit.
+     */
+    @Transactional
     public Item save(Item item) {
         Item savedItem = itemRepository.save(item);
+        imageHashService.indexAfterCommit(savedItem);
+        enqueueFollowUp(savedItem);
+        evictCachedItem(savedItem.getId());
+        catalogueChanged();
+        return savedItem;
+    }
 
-        // Perform keyword-based matching for newly created items
-        try {
-            performAiMatching(savedItem);
-        } catch (Exception e) {
-            System.err.println("Error in AI matching: " + e.getMessage());
-            // Don't fail the save if AI matching fails
+    /**
+     * Bulk import path: inserts one chunk in a single transaction so Hibernate can batch the
+     * item, image and label inserts. Follow-up work goes through the outbox as for single items;
+     * OutboxWorker matches the claimed MATCH_ITEM events of a batch in one pass.
+     */
+    @Transactional
+    public List<Item> saveBatch(List<Item> items) {
+        List<Item> saved = itemRepository.saveAll(items);
+        for (Item item : saved) {
+            imageHashService.indexAfterCommit(item);
+            enqueueFollowUp(item);
         }
+        catalogueChanged();
+        return saved;
+    }
 
-        return savedItem;
+    // Items with a photo are matched after analysis so their AI labels can take part
+    private void enqueueFollowUp(Item item) {
+        OutboxService.Type type = item.getImageUrl() != null
+                ? OutboxService.Type.ANALYZE_IMAGE
+                : OutboxService.Type.MATCH_ITEM;
+        outboxService.enqueue(type, item.getId(), null);
     }
 
-    private void performAiMatching(Item newItem) {
-        try {
-            List<Item> items = itemRepository.findAllWithUser();
+    /**
+     * MATCH_ITEM outbox handler. Failures propagate so the events are retried. Reads the items
+     * from the primary: they were saved moments ago and the replica may not have them yet.
+     */
+    public void matchItemsById(List<Long> ids) {
+        List<Item> items = ReplicaRoutingDataSource.onPrimary(() -> itemRepository.findAllById(ids));
+        if (!items.isEmpty()) {
+            performAiMatching(items);
+        }
+    }
 
-            for (Item existing : items) {
-                if (existing.getId().equals(newItem.getId())) continue;
-                if (existing.getStatus().equals(newItem.getStatus())) continue;
+    // Loads the catalogue once and indexes it by keyword and category, so each new item
+    // is only compared against candidates that can actually match it
+    private void performAiMatching(List<Item> newItems) {
+        Set<Long> newIds = newItems.stream().map(Item::getId).collect(Collectors.toSet());
+        Map<Long, Item> byId = new HashMap<>();
+        Map<String, List<Item>> byKeyword = new HashMap<>();
+        Map<String, List<Item>> byCategory = new HashMap<>();
+        for (Item existing : itemRepository.findAllWithUser()) {
+            if (!newIds.contains(existing.getId())) {
+                indexForMatching(existing, byId, byKeyword, byCategory);
+            }
+        }
+        // Index our own instances of the new items so they can match each other
+        for (Item newItem : newItems) {
+            indexForMatching(newItem, byId, byKeyword, byCategory);
+        }
 
-                // Check keyword similarity in title and description
-                boolean keywordMatch = hasKeywordMatch(newItem, existing);
+        // Re-embedded here because matching runs after Vision analysis, once the AI labels are known
+        Map<Long, float[]> embeddings = embeddingService.update(newItems);
 
-                // Check if categories match or have common AI labels
-                boolean categoryMatch = existing.getCategory() != null && newItem.getCategory() != null &&
-                                       existing.getCategory().equalsIgnoreCase(newItem.getCategory());
+        Map<Long, Item> modified = new LinkedHashMap<>();
+        List<Item[]> matchedPairs = new ArrayList<>();
+        for (Item newItem : newItems) {
+            Item match = findMatch(newItem, embeddings.get(newItem.getId()), byId, byKeyword, byCategory);
+            if (match == null) continue;
 
-                boolean labelMatch = hasCommonLabels(existing.getAiLabels(), newItem.getAiLabels());
+            match.setAiMatched(true);
+            newItem.setAiMatched(true);
 
-                if (keywordMatch || (categoryMatch && labelMatch && !existing.getAiLabels().isEmpty() && !newItem.getAiLabels().isEmpty())) {
-                    existing.setAiMatched(true);
-                    newItem.setAiMatched(true);
+            match.setMatchedItemId(newItem.getId());
+            newItem.setMatchedItemId(match.getId());
 
-                    existing.setMatchedItemId(newItem.getId());
-                    newItem.setMatchedItemId(existing.getId());
+            modified.put(match.getId(), match);
+            modified.put(newItem.getId(), newItem);
+            matchedPairs.add(new Item[] {newItem, match});
 
-                    itemRepository.save(existing);
-                    itemRepository.save(newItem);
+            logger.info("Match found between item {} ({}) and item {} ({})",
+                    newItem.getId(), newItem.getTitle(), match.getId(), match.getTitle());
+        }
 
-                    System.out.println("🤖 MATCH FOUND BETWEEN " +
-                            newItem.getId() + " (" + newItem.getTitle() + ") AND " + existing.getId() + " (" + existing.getTitle() + ")");
+        if (!modified.isEmpty()) {
+            itemRepository.saveAll(modified.values());
+            modified.keySet().forEach(this::evictCachedItem);
+            catalogueChanged();
+            matchedPairs.forEach(pair -> notificationService.matchFound(pair[0], pair[1]));
+        }
+    }
 
-                    break;
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error in AI matching loop: " + e.getMessage());
+    private void indexForMatching(Item item, Map<Long, Item> byId,
+                                  Map<String, List<Item>> byKeyword, Map<String, List<Item>> byCategory) {
+        byId.put(item.getId(), item);
+        for (String keyword : keywordsOf(item)) {
+            byKeyword.computeIfAbsent(keyword, k -> new ArrayList<>()).add(item);
+        }
+        if (item.getCategory() != null) {
+            byCategory.computeIfAbsent(item.getCategory().toLowerCase(), k -> new ArrayList<>()).add(item);
         }
     }
 
-    private boolean hasKeywordMatch(Item item1, Item item2) {
-        String text1 = (item1.getTitle() + " " + item1.getDescription()).toLowerCase();
-        String text2 = (item2.getTitle() + " " + item2.getDescription()).toLowerCase();
+    private Item findMatch(Item newItem, float[] embedding, Map<Long, Item> byId,
+                           Map<String, List<Item>> byKeyword, Map<String, List<Item>> byCategory) {
+        // A visually near-identical photo is the strongest signal, closest first
+        for (Long similarId : imageHashService.findSimilarItems(newItem.getId())) {
+            Item existing = byId.get(similarId);
+            if (existing != null && isCandidate(newItem, existing)) {
+                return existing;
+            }
+        }
 
-        // Common keywords to check
-        String[] keywords = {"iphone", "samsung", "wallet", "keys", "bag", "laptop", "watch", "phone", "charger", "headphones", "earbuds", "airpods"};
+        // Any shared keyword is a match on its own
+        for (String keyword : keywordsOf(newItem)) {
+            for (Item existing : byKeyword.get(keyword)) {
+                if (isCandidate(newItem, existing)) {
+                    return existing;
+                }
+            }
+        }
 
-        for (String keyword : keywords) {
-            if (text1.contains(keyword) && text2.contains(keyword)) {
-                return true;
+        // Paraphrases ("black leather billfold" vs "wallet") through the embedding index
+        if (embedding != null) {
+            for (Long similarId : embeddingService.findSimilarItems(newItem, embedding)) {
+                Item existing = byId.get(similarId);
+                if (existing != null && isCandidate(newItem, existing)) {
+                    return existing;
+                }
             }
         }
 
-        return false;
+        // Otherwise the category must match and the AI labels must overlap
+        if (newItem.getCategory() == null || newItem.getAiLabels() == null || newItem.getAiLabels().isEmpty()) {
+            return null;
+        }
+        for (Item existing : byCategory.getOrDefault(newItem.getCategory().toLowerCase(), List.of())) {
+            if (isCandidate(newItem, existing)
+                    && existing.getAiLabels() != null && !existing.getAiLabels().isEmpty()
+                    && hasCommonLabels(existing.getAiLabels(), newItem.getAiLabels())) {
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    private boolean isCandidate(Item newItem, Item existing) {
+        return !existing.getId().equals(newItem.getId()) && !existing.getStatus().equals(newItem.getStatus());
+    }
+
+    // Package-private for EmbeddingMatchingBenchmarkTest, which compares it with the embedding index
+    static List<String> keywordsOf(Item item) {
+        String text = (item.getTitle() + " " + item.getDescription()).toLowerCase();
+        List<String> found = new ArrayList<>();
+        for (String keyword : MATCH_KEYWORDS) {
+            if (text.contains(keyword)) {
+                found.add(keyword);
+            }
+        }
+        return found;
     }
 
     private boolean hasCommonLabels(List<String> labels1, List<String> labels2) {
@@ -88,19 +249,132 @@ public class ItemService {
         return labels1.stream().anyMatch(label -> labels2.contains(label));
     }
 
+    // Cached items are detached, so every lazy association they serialise must be loaded up front
+    @Cacheable(cacheNames = CacheConfig.ITEMS, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<Item> findById(Long id) {
-        return itemRepository.findByIdWithUser(id);
+        Optional<Item> item = itemRepository.findByIdWithUser(id);
+        item.ifPresent(i -> Hibernate.initialize(i.getAiLabels()));
+        return item;
+    }
+
+    /**
+     * Stores Vision results computed after the item was saved (see OutboxWorker).
+     * The category is only replaced when the reporter did not choose one.
+     */
+    @Transactional
+    public void applyImageAnalysis(Long itemId, VisionService.EnhancedAnalysisResult analysis, List<String> labels) {
+        itemRepository.findById(itemId).ifPresent(item -> {
+            if (item.getCategory() == null || item.getCategory().equals("Other")) {
+                item.setCategory(analysis.getCategory());
+            }
+            item.setAiDetectedCategory(analysis.getCategory());
+            item.setAiConfidenceScore(analysis.getConfidenceScore());
+            item.setAiDetectedColors(analysis.getDetectedColors());
+            item.setAiDetectedBrands(analysis.getDetectedBrands());
+            item.setAiLabels(labels);
+            itemRepository.save(item);
+            outboxService.enqueue(OutboxService.Type.MATCH_ITEM, itemId, null);
+        });
+        evictCachedItem(itemId);
+        catalogueChanged();
     }
 
     public List<Item> findAll() {
         return itemRepository.findAllWithUser();
     }
 
-    public List<Item> findByUserId(Long userId) {
-        return itemRepository.findByUserIdWithUser(userId);
+    /**
+     * Hands a user's items (with owner and images) to the consumer straight from a database cursor,
+     * detaching each once consumed.
+     */
+    @Transactional(readOnly = true)
+    public void forEachByUserId(Long userId, Consumer<? super Item> action) {
+        try (Stream<Item> items = itemRepository.streamByUserIdWithUser(userId)) {
+            items.forEach(item -> {
+                action.accept(item);
+                entityManager.detach(item);
+            });
+        }
     }
 
+    @CacheEvict(cacheNames = CacheConfig.ITEMS, key = "#id")
     public void deleteById(Long id) {
+        List<String> imageUrls = itemRepository.findById(id).map(ItemService::imageUrlsOf).orElse(List.of());
         itemRepository.deleteById(id);
+        // Other items may share a blob (identical photo); UploadReconciler catches anything missed here
+        imageUrls.forEach(uploadService::deleteIfUnreferenced);
+        imageHashService.remove(id);
+        embeddingService.remove(id);
+        catalogueChanged();
+    }
+
+    /**
+     * Strong ETag for the full item list — changes whenever any item is saved, matched or deleted.
+     * Derived from the items table, so every instance agrees on it; re-read from the primary right
+     * after a local commit, and at most every catalogue.version-check-ms otherwise.
+     */
+    public String getCatalogueETag() {
+        String version = catalogueVersion;
+        if (version != null && catalogueCheckedCommits == catalogueCommits.get()
+                && System.nanoTime() - catalogueCheckedAt < TimeUnit.MILLISECONDS.toNanos(versionCheckMs)) {
+            return "\"items-" + version + "\"";
+        }
+        if (version == null) {
+            catalogueCheckLock.lock();
+        } else if (!catalogueCheckLock.tryLock()) {
+            return "\"items-" + version + "\""; // another caller is reading it
+        }
+        try {
+            // Taken before the query: a commit that lands while it runs still triggers the next read
+            long commits = catalogueCommits.get();
+            long checkedAt = System.nanoTime();
+            version = ReplicaRoutingDataSource.onPrimary(itemRepository::catalogueVersion);
+            catalogueVersion = version;
+            catalogueCheckedAt = checkedAt;
+            catalogueCheckedCommits = commits;
+            return "\"items-" + version + "\"";
+        } finally {
+            catalogueCheckLock.unlock();
+        }
+    }
+
+    // Only once the write is visible: a re-read before commit would cache the old version again
+    private void catalogueChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    catalogueCommits.incrementAndGet();
+                }
+            });
+        } else {
+            catalogueCommits.incrementAndGet();
+        }
+    }
+
+    /**
+     * Strong ETag for a single item, derived from its version column.
+     */
+    public String getItemETag(Item item) {
+        return "\"item-" + item.getId() + "-" + item.getVersion() + "\"";
+    }
+
+    private static List<String> imageUrlsOf(Item item) {
+        Set<String> urls = new LinkedHashSet<>();
+        if (item.getImageUrl() != null) {
+            urls.add(item.getImageUrl());
+        }
+        if (item.getImages() != null) {
+            item.getImages().forEach(image -> urls.add(image.getImageUrl()));
+        }
+        return new ArrayList<>(urls);
+    }
+
+    private void evictCachedItem(Long id) {
+        Cache cache = cacheManager.getCache(CacheConfig.ITEMS);
+        if (cache != null && id != null) {
+            cache.evict(id);
+        }
     }
 }
\ No newline at end of file
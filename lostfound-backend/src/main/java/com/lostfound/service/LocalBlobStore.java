@@ -0,0 +1,128 @@
+package com.lostfound.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Blob store on the local filesystem under storage.local.root, served by UploadServingFilter at /uploads/.
+ * Uploads are spooled into root/.tmp and renamed into place, so a blob is either absent or
+ * complete — never half written — and concurrent uploads of the same content are harmless.
+ */
+public class LocalBlobStore implements BlobStore {
+
+    private static final String URL_PREFIX = "/uploads/";
+
+    private final Path root;
+    private final Path tmp;
+
+    public LocalBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tmp = this.root.resolve(".tmp");
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public String put(String namespace, InputStream content, String extension) throws IOException {
+        Spooled spooled = BlobStore.spool(content, tmp);
+        String key = BlobStore.keyOf(namespace, spooled.getSha256(), extension);
+        Path target = resolve(key);
+        try {
+            if (Files.exists(target)) {
+                // Same bytes already stored; refresh the timestamp so UploadReconciler's grace period
+                // covers the new reference as well
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                return key;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(spooled.getFile(), target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(spooled.getFile(), target);
+            } catch (FileAlreadyExistsException e) {
+                // lost a race with an identical upload
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(spooled.getFile());
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public <T> T withLocalFile(String key, LocalFileCallback<T> callback) throws Exception {
+        return callback.apply(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Instant lastModified(String key) throws IOException {
+        try {
+            return Files.getLastModifiedTime(resolve(key)).toInstant();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void list(String namespace, BlobVisitor visitor) throws IOException {
+        Path dir = resolve(namespace);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                String key = root.relativize(file).toString().replace(File.separatorChar, '/');
+                visitor.visit(key, Files.getLastModifiedTime(file).toInstant());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return URL_PREFIX + key;
+    }
+
+    @Override
+    public String keyFor(String url) {
+        return url != null && url.startsWith(URL_PREFIX) ? url.substring(URL_PREFIX.length()) : null;
+    }
+
+    // Keys come from URLs stored in the database; never let one point outside the root
+    public Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.startsWith(tmp)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return path;
+    }
+}
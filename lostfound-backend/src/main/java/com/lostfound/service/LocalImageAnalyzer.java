@@ -0,0 +1,244 @@
+package com.lostfound.service;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.lostfound.dto.VisionResponse.Color;
+import com.lostfound.dto.VisionResponse.ColorInfo;
+import com.lostfound.dto.VisionResponse.EntityAnnotation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process analyzer used when no Cloud Vision key is configured. Dominant colors come from the
+ * decoded pixels; labels come from an ImageNet-style ONNX classifier (e.g. MobileNetV2) when
+ * vision.local.model-path points at one. Work runs on a small bounded pool so a burst of uploads
+ * queues up (or is rejected) instead of competing with request threads for CPU.
+ */
+public class LocalImageAnalyzer implements ImageAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalImageAnalyzer.class);
+
+    // MobileNet input: 224x224 RGB, NCHW, ImageNet mean/std normalisation
+    private static final int INPUT_SIZE = 224;
+    private static final float[] MEAN = {0.485f, 0.456f, 0.406f};
+    private static final float[] STD = {0.229f, 0.224f, 0.225f};
+
+    private static final int TOP_LABELS = 5;
+    private static final float MIN_LABEL_SCORE = 0.05f;
+
+    // Colors are counted on a downscaled copy, bucketed to 3 bits per channel
+    private static final int COLOR_SAMPLE_SIZE = 64;
+    private static final int MAX_COLORS = 5;
+
+    private final String modelPath;
+    private final String labelsPath;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    private OrtEnvironment environment;
+    private OrtSession session;
+    private String inputName;
+    private List<String> classNames = List.of();
+
+    public LocalImageAnalyzer(String modelPath, String labelsPath, int threads, int queueCapacity, long timeoutMs) {
+        this.modelPath = modelPath;
+        this.labelsPath = labelsPath;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger counter = new AtomicInteger();
+        // AbortPolicy: a full queue fails the analysis and VisionService falls back to the filename
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "image-analyzer-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PostConstruct
+    public void start() throws IOException, OrtException {
+        if (modelPath != null && !modelPath.isEmpty()) {
+            environment = OrtEnvironment.getEnvironment();
+            OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+            // Parallelism comes from the worker pool, so each inference stays on one core
+            options.setIntraOpNumThreads(1);
+            session = environment.createSession(modelPath, options);
+            inputName = session.getInputNames().iterator().next();
+            classNames = Files.readAllLines(Paths.get(labelsPath), StandardCharsets.UTF_8);
+            logger.info("Loaded local image model {} ({} classes)", modelPath, classNames.size());
+        } else {
+            logger.info("No local image model configured, offline analysis detects colors only");
+        }
+        executor.prestartAllCoreThreads();
+        executor.submit(this::warmUp);
+    }
+
+    @PreDestroy
+    public void stop() throws OrtException {
+        executor.shutdownNow();
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    // First inference allocates the session's buffers and loads the ImageIO codecs; do it before real traffic
+    private void warmUp() {
+        long started = System.currentTimeMillis();
+        try {
+            BufferedImage blank = new BufferedImage(INPUT_SIZE, INPUT_SIZE, BufferedImage.TYPE_INT_RGB);
+            ImageIO.getImageReadersByFormatName("jpeg");
+            dominantColors(blank);
+            if (session != null) {
+                classify(blank);
+            }
+            logger.info("Local image analyzer warmed up in {} ms", System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.warn("Local image analyzer warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Analysis analyze(String imagePath) throws Exception {
+        Future<Analysis> future = executor.submit(() -> {
+            BufferedImage image = ImageIO.read(new File(imagePath));
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + imagePath);
+            }
+            List<EntityAnnotation> labels = session != null ? classify(image) : List.of();
+            return new Analysis(labels, dominantColors(image));
+        });
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isSaturated() {
+        return executor.getQueue().remainingCapacity() == 0;
+    }
+
+    private List<EntityAnnotation> classify(BufferedImage image) throws OrtException {
+        BufferedImage resized = resize(image, INPUT_SIZE);
+        int plane = INPUT_SIZE * INPUT_SIZE;
+        FloatBuffer input = FloatBuffer.allocate(3 * plane);
+        for (int y = 0; y < INPUT_SIZE; y++) {
+            for (int x = 0; x < INPUT_SIZE; x++) {
+                int rgb = resized.getRGB(x, y);
+                int offset = y * INPUT_SIZE + x;
+                input.put(offset, (((rgb >> 16) & 0xFF) / 255f - MEAN[0]) / STD[0]);
+                input.put(plane + offset, (((rgb >> 8) & 0xFF) / 255f - MEAN[1]) / STD[1]);
+                input.put(2 * plane + offset, ((rgb & 0xFF) / 255f - MEAN[2]) / STD[2]);
+            }
+        }
+
+        float[] logits;
+        try (OnnxTensor tensor = OnnxTensor.createTensor(environment, input, new long[]{1, 3, INPUT_SIZE, INPUT_SIZE});
+             OrtSession.Result result = session.run(Map.of(inputName, tensor))) {
+            logits = ((float[][]) result.get(0).getValue())[0];
+        }
+        float[] probabilities = softmax(logits);
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < probabilities.length; i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingDouble((Integer i) -> probabilities[i]).reversed());
+
+        List<EntityAnnotation> labels = new ArrayList<>();
+        for (int i : order.subList(0, Math.min(TOP_LABELS, order.size()))) {
+            if (probabilities[i] < MIN_LABEL_SCORE || i >= classNames.size()) break;
+            // ImageNet class names list synonyms ("backpack, back pack, knapsack"); the first is enough
+            String name = classNames.get(i).split(",")[0].trim();
+            labels.add(new EntityAnnotation(name, probabilities[i]));
+        }
+        return labels;
+    }
+
+    private float[] softmax(float[] logits) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (float logit : logits) {
+            max = Math.max(max, logit);
+        }
+        float sum = 0f;
+        float[] result = new float[logits.length];
+        for (int i = 0; i < logits.length; i++) {
+            result[i] = (float) Math.exp(logits[i] - max);
+            sum += result[i];
+        }
+        for (int i = 0; i < result.length; i++) {
+            result[i] /= sum;
+        }
+        return result;
+    }
+
+    private List<ColorInfo> dominantColors(BufferedImage image) {
+        BufferedImage sample = resize(image, COLOR_SAMPLE_SIZE);
+        int[] counts = new int[512];
+        long[][] sums = new long[512][3];
+        for (int y = 0; y < COLOR_SAMPLE_SIZE; y++) {
+            for (int x = 0; x < COLOR_SAMPLE_SIZE; x++) {
+                int rgb = sample.getRGB(x, y);
+                int r = (rgb >> 16) & 0xFF, g = (rgb >> 8) & 0xFF, b = rgb & 0xFF;
+                int bucket = (r >> 5) << 6 | (g >> 5) << 3 | (b >> 5);
+                counts[bucket]++;
+                sums[bucket][0] += r;
+                sums[bucket][1] += g;
+                sums[bucket][2] += b;
+            }
+        }
+
+        List<Integer> buckets = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) buckets.add(i);
+        }
+        buckets.sort(Comparator.comparingInt((Integer i) -> counts[i]).reversed());
+
+        float total = COLOR_SAMPLE_SIZE * COLOR_SAMPLE_SIZE;
+        List<ColorInfo> colors = new ArrayList<>();
+        for (int i : buckets.subList(0, Math.min(MAX_COLORS, buckets.size()))) {
+            // Report the bucket's average color, like Vision does, rather than its corner
+            Color color = new Color((float) sums[i][0] / counts[i], (float) sums[i][1] / counts[i],
+                    (float) sums[i][2] / counts[i]);
+            colors.add(new ColorInfo(color, counts[i] / total, counts[i] / total));
+        }
+        return colors;
+    }
+
+    private BufferedImage resize(BufferedImage image, int size) {
+        BufferedImage resized = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+}
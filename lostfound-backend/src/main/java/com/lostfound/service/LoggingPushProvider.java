@@ -0,0 +1,32 @@
+package com.lostfound.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local stub used when FCM is not configured: logs each notification and keeps the
+ * most recent ones in memory so tests and local runs can inspect what would have been sent.
+ */
+public class LoggingPushProvider implements PushProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingPushProvider.class);
+    private static final int MAX_RECORDED = 100;
+
+    private final List<PushNotification> sent = new ArrayList<>();
+
+    @Override
+    public synchronized void send(String deviceToken, PushNotification notification) {
+        logger.info("Push to {}: {} - {}", deviceToken, notification.getTitle(), notification.getBody());
+        if (sent.size() == MAX_RECORDED) {
+            sent.remove(0);
+        }
+        sent.add(notification);
+    }
+
+    public synchronized List<PushNotification> getSent() {
+        return new ArrayList<>(sent);
+    }
+}
@@ -0,0 +1,173 @@
+package com.lostfound.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the monthly range partitions of the messages table (see V3 migration):
+ * creates partitions ahead of time and detaches the ones past the retention window.
+ * Detached partitions are kept as standalone tables so they can be archived or re-attached.
+ */
+@Service
+public class MessagePartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePartitionService.class);
+
+    private static final String PARTITION_PREFIX = "messages_";
+    private static final String DEFAULT_PARTITION = "messages_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("uuuu_MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // How many months ahead of the current one must already have a partition
+    @Value("${messages.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    // Months of history kept attached (and visible to the app); 0 keeps everything
+    @Value("${messages.partition.retention-months:24}")
+    private int retentionMonths;
+
+    /**
+     * Lower bound for a message query: the start the client asked for, or the whole retention window
+     * when it asked for none, but never before the retention window. Postgres only scans the
+     * partitions from that month on.
+     */
+    public LocalDateTime queryStart(LocalDateTime requested) {
+        LocalDateTime history = historyStart();
+        return requested == null || requested.isBefore(history) ? history : requested;
+    }
+
+    /**
+     * Oldest month still attached; older partitions are detached and invisible to queries.
+     */
+    public LocalDateTime historyStart() {
+        if (retentionMonths <= 0) {
+            return LocalDateTime.of(1970, 1, 1, 0, 0);
+        }
+        return YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${messages.partition.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            if (!isPartitioned()) {
+                logger.warn("messages table is not partitioned, skipping partition maintenance");
+                return;
+            }
+            createFuturePartitions();
+            if (retentionMonths > 0) {
+                detachExpiredPartitions();
+            }
+        } catch (Exception e) {
+            logger.error("Message partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table p " +
+                "JOIN pg_class c ON c.oid = p.partrelid WHERE c.relname = 'messages')",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private void createFuturePartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!tableExists(partitionName(month))) {
+                createPartition(month);
+            }
+        }
+    }
+
+    /**
+     * Creates the month as a standalone table, moves any of its rows out of messages_default and then
+     * attaches it. Creating it directly as a partition would fail once the default partition holds a
+     * row in that range (e.g. written with a skewed clock before the month was created).
+     */
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        boolean hasDefault = tableExists(DEFAULT_PARTITION);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE messages INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            if (hasDefault) {
+                // Nothing may land in the default between the move and the attach, which checks it
+                jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN EXCLUSIVE MODE");
+                int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                        " WHERE created_at >= ? AND created_at < ? RETURNING *) INSERT INTO " + partition +
+                        " SELECT * FROM moved", from.atStartOfDay(), to.atStartOfDay());
+                if (moved > 0) {
+                    logger.info("Moved {} messages from {} into {}", moved, DEFAULT_PARTITION, partition);
+                }
+            }
+            jdbcTemplate.execute("ALTER TABLE messages ATTACH PARTITION " + partition +
+                    " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        });
+        logger.info("Created message partition {}", partition);
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private void detachExpiredPartitions() {
+        YearMonth oldestRetained = YearMonth.now().minusMonths(retentionMonths);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'messages'",
+                String.class);
+
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month != null && month.isBefore(oldestRetained)) {
+                jdbcTemplate.execute("ALTER TABLE messages DETACH PARTITION " + partition);
+                logger.info("Detached expired message partition {}", partition);
+            }
+        }
+    }
+
+    private String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    // Returns null for partitions not created by this service (e.g. messages_default)
+    private YearMonth parseMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
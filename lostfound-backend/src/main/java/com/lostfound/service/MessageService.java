@@ -6,12 +6,16 @@ import com.lostfound.model.Item;
 import com.lostfound.repository.MessageRepository;
 import com.lostfound.repository.UserRepository;
 import com.lostfound.repository.ItemRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class MessageService {
@@ -25,6 +29,15 @@ public class MessageService {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private MessagePartitionService messagePartitionService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private EntityManager entityManager;
+
     // Send a message
     @Transactional
     public Message sendMessage(Long senderId, Long receiverId, Long itemId, String content) {
@@ -49,26 +62,40 @@ public class MessageService {
         }
         message.setContent(content);
 
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        // Push to the receiver once this transaction commits
+        outboxService.enqueue(OutboxService.Type.NEW_MESSAGE, saved.getId(), null);
+        return saved;
     }
 
-    // Get conversation between two users for an item (or any conversation if itemId is 0/null)
-    public List<Message> getConversation(Long user1Id, Long user2Id, Long itemId) {
+    // Get conversation between two users for an item (or any conversation if itemId is 0/null),
+    // from since (null = the default window) on
+    public List<Message> getConversation(Long user1Id, Long user2Id, Long itemId, LocalDateTime since) {
+        LocalDateTime start = messagePartitionService.queryStart(since);
         if (itemId == null || itemId == 0) {
             // Get all messages between these users regardless of item
-            return messageRepository.findConversation(user1Id, user2Id);
+            return messageRepository.findConversation(user1Id, user2Id, start);
         }
-        return messageRepository.findConversationByItem(itemId, user1Id, user2Id);
+        return messageRepository.findConversationByItem(itemId, user1Id, user2Id, start);
     }
 
-    // Get all messages for a user
-    public List<Message> getAllMessagesForUser(Long userId) {
-        return messageRepository.findAllMessagesForUser(userId);
+    /**
+     * Hands every message for a user, newest first, to the consumer straight from a database cursor.
+     * Each message is detached once consumed, so memory doesn't grow with the history.
+     */
+    @Transactional(readOnly = true)
+    public void forEachMessageForUser(Long userId, LocalDateTime since, Consumer<? super Message> action) {
+        try (Stream<Message> messages = messageRepository.streamAllMessagesForUser(userId, messagePartitionService.queryStart(since))) {
+            messages.forEach(message -> {
+                action.accept(message);
+                entityManager.detach(message);
+            });
+        }
     }
 
     // Get unread message count
-    public long getUnreadCount(Long userId) {
-        return messageRepository.countUnreadMessages(userId);
+    public long getUnreadCount(Long userId, LocalDateTime since) {
+        return messageRepository.countUnreadMessages(userId, messagePartitionService.queryStart(since));
     }
 
     // Mark messages as read
@@ -83,8 +110,8 @@ public class MessageService {
 
     // Mark all messages from a sender as read
     @Transactional
-    public void markConversationAsRead(Long userId, Long otherUserId) {
-        List<Message> messages = messageRepository.findConversation(userId, otherUserId);
+    public void markConversationAsRead(Long userId, Long otherUserId, LocalDateTime since) {
+        List<Message> messages = messageRepository.findConversation(userId, otherUserId, messagePartitionService.queryStart(since));
         for (Message message : messages) {
             if (!message.isRead() && message.getReceiver().getId().equals(userId)) {
                 message.setRead(true);
@@ -0,0 +1,235 @@
+package com.lostfound.service;
+
+import com.lostfound.model.Item;
+import com.lostfound.model.Message;
+import com.lostfound.model.User;
+import com.lostfound.repository.MessageRepository;
+import com.lostfound.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Push notifications for match and message events, delivered to the user's stored FCM token.
+ * Events are coalesced per user over a short window (one push for "3 new messages" instead of
+ * three), then handed to a bounded send queue drained by a single rate-limited sender thread.
+ */
+@Service
+public class NotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
+    private enum EventType { MATCH_FOUND, NEW_MESSAGE }
+
+    private static class Event {
+        final EventType type;
+        final String title;
+        final String body;
+        final Map<String, String> data;
+
+        Event(EventType type, String title, String body, Map<String, String> data) {
+            this.type = type;
+            this.title = title;
+            this.body = body;
+            this.data = data;
+        }
+    }
+
+    // What a user has waiting for the next flush: the first event, sent as is if it stays alone,
+    // and counts for the summary otherwise, so a burst of events costs a user no more memory than one
+    private static class Pending {
+        final Event first;
+        int messages;
+        int matches;
+
+        Pending(Event first) {
+            this.first = first;
+        }
+
+        void count(Event event) {
+            if (event.type == EventType.NEW_MESSAGE) {
+                messages++;
+            } else {
+                matches++;
+            }
+        }
+
+        int total() {
+            return messages + matches;
+        }
+    }
+
+    private static class Outgoing {
+        final Long userId;
+        final String deviceToken;
+        final PushProvider.PushNotification notification;
+
+        Outgoing(Long userId, String deviceToken, PushProvider.PushNotification notification) {
+            this.userId = userId;
+            this.deviceToken = deviceToken;
+            this.notification = notification;
+        }
+    }
+
+    @Autowired
+    private PushProvider pushProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Value("${notifications.max-per-second:20}")
+    private int maxPerSecond;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<Outgoing> sendQueue;
+    private Thread sender;
+
+    public NotificationService(@Value("${notifications.queue-capacity:10000}") int queueCapacity) {
+        this.sendQueue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public void matchFound(Item item, Item match) {
+        notifyOwner(item, match);
+        notifyOwner(match, item);
+    }
+
+    // NEW_MESSAGE outbox handler
+    public void messageReceived(Long messageId) {
+        Message message = messageRepository.findById(messageId).orElse(null);
+        if (message == null || message.getReceiver() == null) {
+            return;
+        }
+        String sender = message.getSender() != null ? message.getSender().getName() : "Someone";
+        Map<String, String> data = new HashMap<>();
+        data.put("type", EventType.NEW_MESSAGE.name());
+        data.put("messageId", String.valueOf(messageId));
+        if (message.getSender() != null) {
+            data.put("senderId", String.valueOf(message.getSender().getId()));
+        }
+        add(message.getReceiver().getId(), new Event(EventType.NEW_MESSAGE,
+                "New message from " + sender, message.getContent(), data));
+    }
+
+    private void notifyOwner(Item item, Item match) {
+        if (item.getUser() == null) {
+            return;
+        }
+        add(item.getUser().getId(), new Event(EventType.MATCH_FOUND,
+                "Possible match found",
+                "\"" + match.getTitle() + "\" may be your " + item.getTitle(),
+                Map.of("type", EventType.MATCH_FOUND.name(),
+                       "itemId", String.valueOf(item.getId()),
+                       "matchedItemId", String.valueOf(match.getId()))));
+    }
+
+    private void add(Long userId, Event event) {
+        // compute() is atomic per key, so an event can't be counted in an entry flush() already removed
+        pending.compute(userId, (id, waiting) -> {
+            Pending updated = waiting != null ? waiting : new Pending(event);
+            updated.count(event);
+            return updated;
+        });
+    }
+
+    /**
+     * Closes the coalescing window: one notification per user for everything collected since the last run.
+     */
+    @Scheduled(fixedDelayString = "${notifications.coalesce-window-ms:5000}")
+    public void flush() {
+        for (Long userId : pending.keySet()) {
+            Pending events = pending.remove(userId);
+            if (events == null) continue;
+
+            User user = userRepository.findById(userId).orElse(null);
+            if (user == null || user.getFcmToken() == null || user.getFcmToken().isEmpty()) continue;
+
+            if (!sendQueue.offer(new Outgoing(userId, user.getFcmToken(), coalesce(events)))) {
+                logger.warn("Notification send queue full, dropping notification for user {}", userId);
+            }
+        }
+    }
+
+    private PushProvider.PushNotification coalesce(Pending events) {
+        if (events.total() == 1) {
+            Event event = events.first;
+            return new PushProvider.PushNotification(event.title, event.body, event.data);
+        }
+        int messages = events.messages;
+        int matches = events.matches;
+        List<String> parts = new ArrayList<>();
+        if (messages > 0) parts.add(messages + (messages == 1 ? " new message" : " new messages"));
+        if (matches > 0) parts.add(matches + (matches == 1 ? " possible match" : " possible matches"));
+        return new PushProvider.PushNotification("Lost & Found", "You have " + String.join(" and ", parts),
+                Map.of("type", "SUMMARY", "count", String.valueOf(events.total())));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSender() {
+        sender = new Thread(this::sendLoop, "push-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    public void stopSender() {
+        if (sender != null) {
+            sender.interrupt();
+        }
+    }
+
+    // Paces sends to notifications.max-per-second to stay inside the provider's quota
+    private void sendLoop() {
+        long minIntervalMs = 1000L / Math.max(1, maxPerSecond);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Outgoing outgoing = sendQueue.take();
+                long started = System.currentTimeMillis();
+                try {
+                    pushProvider.send(outgoing.deviceToken, outgoing.notification);
+                } catch (PushProvider.InvalidTokenException e) {
+                    logger.info("Push token of user {} rejected, clearing it: {}", outgoing.userId, e.getMessage());
+                    clearToken(outgoing.userId, outgoing.deviceToken);
+                } catch (Exception e) {
+                    logger.warn("Push delivery failed: {}", e.getMessage());
+                }
+                long elapsed = System.currentTimeMillis() - started;
+                if (elapsed < minIntervalMs) {
+                    Thread.sleep(minIntervalMs - elapsed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Only if it is still the stored token: the app may have registered a new one meanwhile
+    private void clearToken(Long userId, String deviceToken) {
+        try {
+            userRepository.findById(userId).ifPresent(user -> {
+                if (deviceToken.equals(user.getFcmToken())) {
+                    user.setFcmToken(null);
+                    userRepository.save(user);
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Could not clear push token of user {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.lostfound.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox: events are inserted in the caller's transaction, so they exist
+ * if and only if the write that produced them committed. OutboxWorker claims and runs them
+ * with at-least-once semantics — handlers must be safe to run twice.
+ */
+@Service
+public class OutboxService {
+
+    public enum Type {
+        // Run Vision on the item's primary image, then schedule MATCH_ITEM; when it goes DEAD,
+        // MATCH_ITEM is scheduled anyway and the item is matched without AI labels
+        ANALYZE_IMAGE,
+        // Match the item against the opposite status
+        MATCH_ITEM,
+        // Push-notify the receiver of a message (aggregate id is the message id)
+        NEW_MESSAGE
+    }
+
+    public static class Event {
+        private final long id;
+        private final Type type;
+        private final long aggregateId;
+        private final String payload;
+        private final int attempts;
+
+        Event(long id, Type type, long aggregateId, String payload, int attempts) {
+            this.id = id;
+            this.type = type;
+            this.aggregateId = aggregateId;
+            this.payload = payload;
+            this.attempts = attempts;
+        }
+
+        public long getId() { return id; }
+        public Type getType() { return type; }
+        public long getAggregateId() { return aggregateId; }
+        public String getPayload() { return payload; }
+        public int getAttempts() { return attempts; }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // How long a claimed event stays invisible to other workers before it is retried
+    @Value("${outbox.lease-seconds:300}")
+    private int leaseSeconds;
+
+    @Value("${outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Type type, Long aggregateId, String payload) {
+        jdbcTemplate.update(
+                "INSERT INTO outbox_events (event_type, aggregate_id, payload) VALUES (?, ?, ?)",
+                type.name(), aggregateId, payload);
+    }
+
+    /**
+     * Leases up to {@code limit} due events. SKIP LOCKED lets workers on every node claim
+     * disjoint batches without blocking each other; the lease makes crashed claims reappear.
+     */
+    @Transactional
+    public List<Event> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.query(
+                "UPDATE outbox_events SET available_at = ?, attempts = attempts + 1 " +
+                "WHERE id IN (SELECT id FROM outbox_events " +
+                "             WHERE status = 'PENDING' AND available_at <= ? " +
+                "             ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                "RETURNING id, event_type, aggregate_id, payload, attempts",
+                (rs, rowNum) -> new Event(
+                        rs.getLong("id"),
+                        Type.valueOf(rs.getString("event_type")),
+                        rs.getLong("aggregate_id"),
+                        rs.getString("payload"),
+                        rs.getInt("attempts")),
+                Timestamp.valueOf(now.plusSeconds(leaseSeconds)), Timestamp.valueOf(now), limit);
+    }
+
+    public void complete(Event event) {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE id = ?", event.getId());
+    }
+
+    /**
+     * Exponential backoff; after maxAttempts, or at once when the error is not retryable, the event
+     * is parked as DEAD for inspection. A dead ANALYZE_IMAGE queues MATCH_ITEM in the same transaction.
+     */
+    @Transactional
+    public void fail(Event event, Exception error, boolean retryable) {
+        boolean dead = !retryable || event.getAttempts() >= maxAttempts;
+        LocalDateTime retryAt = LocalDateTime.now().plusSeconds(30L << Math.min(event.getAttempts(), 10));
+        jdbcTemplate.update(
+                "UPDATE outbox_events SET status = ?, available_at = ?, last_error = ? WHERE id = ?",
+                dead ? "DEAD" : "PENDING", Timestamp.valueOf(retryAt), String.valueOf(error.getMessage()), event.getId());
+        if (dead && event.getType() == Type.ANALYZE_IMAGE) {
+            enqueue(Type.MATCH_ITEM, event.getAggregateId(), null);
+        }
+    }
+}
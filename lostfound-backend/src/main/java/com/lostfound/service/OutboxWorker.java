@@ -0,0 +1,179 @@
+package com.lostfound.service;
+
+import com.lostfound.config.ReplicaRoutingDataSource;
+import com.lostfound.model.Item;
+import com.lostfound.repository.ItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of pollers draining the outbox. Each poller claims a batch, runs it, and only
+ * sleeps when the outbox is empty, so a backlog is worked off at full speed.
+ */
+@Component
+public class OutboxWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxWorker.class);
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private VisionService visionService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private UploadService uploadService;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${outbox.worker.threads:2}")
+    private int threads;
+
+    @Value("${outbox.worker.batch-size:20}")
+    private int batchSize;
+
+    @Value("${outbox.worker.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    private ExecutorService pool;
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        // Pollers mostly wait on the database and Vision; on Java 21 they can be virtual threads
+        ThreadFactory threadFactory = Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("outbox-").getVirtualThreadFactory()
+                : new CustomizableThreadFactory("outbox-");
+        pool = Executors.newFixedThreadPool(threads, threadFactory);
+        for (int i = 0; i < threads; i++) {
+            pool.execute(this::pollLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (pool != null) {
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                List<OutboxService.Event> events = outboxService.claim(batchSize);
+                if (events.isEmpty()) {
+                    Thread.sleep(pollIntervalMs);
+                } else {
+                    // No user behind these events to get read-your-writes: a replica that hasn't caught up
+                    // yet would make a just-saved item look deleted and its event would be dropped
+                    ReplicaRoutingDataSource.onPrimary(() -> {
+                        process(events);
+                        return null;
+                    });
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Outbox poll failed: {}", e.getMessage(), e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void process(List<OutboxService.Event> events) {
+        // Matching loads the whole catalogue, so all MATCH_ITEM events in a batch share one pass
+        List<OutboxService.Event> matches = new ArrayList<>();
+        for (OutboxService.Event event : events) {
+            if (event.getType() == OutboxService.Type.MATCH_ITEM) {
+                matches.add(event);
+                continue;
+            }
+            try {
+                handle(event);
+                outboxService.complete(event);
+            } catch (Exception e) {
+                // Bad input (a missing image, a URL that isn't an upload) won't be fixed by retrying
+                boolean retryable = !(e instanceof IllegalArgumentException);
+                logger.warn("Outbox event {} ({}) failed{}: {}", event.getId(), event.getType(),
+                        retryable ? "" : " permanently", e.getMessage());
+                outboxService.fail(event, e, retryable);
+            }
+        }
+
+        if (!matches.isEmpty()) {
+            try {
+                itemService.matchItemsById(matches.stream().map(OutboxService.Event::getAggregateId).toList());
+                matches.forEach(outboxService::complete);
+            } catch (Exception e) {
+                logger.warn("Outbox matching for {} items failed: {}", matches.size(), e.getMessage());
+                matches.forEach(event -> outboxService.fail(event, e, true));
+            }
+        }
+    }
+
+    private void handle(OutboxService.Event event) throws Exception {
+        switch (event.getType()) {
+            case ANALYZE_IMAGE -> analyzeImage(event.getAggregateId());
+            case NEW_MESSAGE -> notificationService.messageReceived(event.getAggregateId());
+            default -> throw new IllegalStateException("No handler for " + event.getType());
+        }
+    }
+
+    private void analyzeImage(Long itemId) throws Exception {
+        // From the database, not ItemService's cache: the cached copy may predate the latest edit
+        Item item = itemRepository.findById(itemId).orElse(null);
+        if (item == null) {
+            return; // deleted since, nothing to do
+        }
+        // Both fail the event permanently, which still queues MATCH_ITEM (OutboxService.fail)
+        if (item.getImageUrl() == null) {
+            throw new IllegalArgumentException("Item " + itemId + " no longer has an image");
+        }
+        if (!uploadService.exists(item.getImageUrl())) {
+            throw new IllegalArgumentException("Image " + item.getImageUrl() + " is missing from the blob store");
+        }
+        // One analysis per image; its labels are the same ones analyzeImageAndExtractLabels would return
+        VisionService.EnhancedAnalysisResult analysis = uploadService.withLocalFile(item.getImageUrl(),
+                file -> visionService.analyzeImageOrThrow(file.toString()));
+        itemService.applyImageAnalysis(itemId, analysis, analysis.getLabels());
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollIntervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
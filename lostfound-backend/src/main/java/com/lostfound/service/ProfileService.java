@@ -1,20 +1,17 @@
 package com.lostfound.service;
 
+import com.lostfound.config.AuthenticatedUser;
+import com.lostfound.config.CacheConfig;
 import com.lostfound.dto.ProfileDTO;
 import com.lostfound.model.User;
 import com.lostfound.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
 
 @Service
 public class ProfileService {
@@ -23,17 +20,21 @@ public class ProfileService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
-    public ProfileDTO getProfile(String email) {
-        User user = userRepository.findByEmail(email)
+    @Autowired
+    private UploadService uploadService;
+
+    // Evicted by UserCacheEvictor once a change to the user row commits
+    @Cacheable(cacheNames = CacheConfig.PROFILES, key = "#currentUser.email")
+    public ProfileDTO getProfile(AuthenticatedUser currentUser) {
+        User user = userRepository.findByEmail(currentUser.getEmail())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
         return convertToDTO(user);
     }
 
-    public ProfileDTO updateProfile(String email, ProfileDTO updates) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    public ProfileDTO updateProfile(AuthenticatedUser currentUser, ProfileDTO updates) {
+        User user = load(currentUser);
 
         if (updates.getName() != null && !updates.getName().trim().isEmpty()) {
             user.setName(updates.getName().trim());
@@ -69,72 +70,58 @@ public class ProfileService {
         return convertToDTO(updatedUser);
     }
 
-    public ProfileDTO uploadProfilePicture(String email, MultipartFile file) throws IOException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    public ProfileDTO uploadProfilePicture(AuthenticatedUser currentUser, MultipartFile file) throws IOException {
+        User user = load(currentUser);
 
         if (file.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is empty");
         }
 
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File must be an image");
-        }
-
         if (file.getSize() > 5 * 1024 * 1024) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File size must be less than 5MB");
         }
 
-        if (user.getProfilePictureUrl() != null && !user.getProfilePictureUrl().isEmpty()) {
-            deleteOldProfilePicture(user.getProfilePictureUrl());
-        }
-
-        String originalFilename = file.getOriginalFilename();
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-        String filename = "profile_" + user.getId() + "_" + UUID.randomUUID().toString() + extension;
-
-        Path uploadPath = Paths.get("uploads/profiles/");
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        // The content decides, not the Content-Type header: sniffed, decoded under limits, re-encoded
+        String pictureUrl;
+        try {
+            pictureUrl = uploadService.storeImage(UploadService.PROFILES, file).getUrl();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File must be an image: " + e.getMessage());
         }
 
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-        String profilePictureUrl = "/uploads/profiles/" + filename;
-        user.setProfilePictureUrl(profilePictureUrl);
+        String oldPictureUrl = user.getProfilePictureUrl();
+        user.setProfilePictureUrl(pictureUrl);
 
         User updatedUser = userRepository.save(user);
+        // After the save, so the old URL is no longer referenced by this user
+        if (oldPictureUrl != null && !oldPictureUrl.isEmpty() && !oldPictureUrl.equals(updatedUser.getProfilePictureUrl())) {
+            uploadService.deleteIfUnreferenced(oldPictureUrl);
+        }
         return convertToDTO(updatedUser);
     }
 
-    public ProfileDTO deleteProfilePicture(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    public ProfileDTO deleteProfilePicture(AuthenticatedUser currentUser) {
+        User user = load(currentUser);
 
         if (user.getProfilePictureUrl() != null && !user.getProfilePictureUrl().isEmpty()) {
-            deleteOldProfilePicture(user.getProfilePictureUrl());
+            String oldPictureUrl = user.getProfilePictureUrl();
             user.setProfilePictureUrl(null);
             User updatedUser = userRepository.save(user);
+            uploadService.deleteIfUnreferenced(oldPictureUrl);
             return convertToDTO(updatedUser);
         }
 
         return convertToDTO(user);
     }
 
-    public void changePassword(String email, String oldPassword, String newPassword) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    public void changePassword(AuthenticatedUser currentUser, String oldPassword, String newPassword) {
+        User user = load(currentUser);
 
         boolean isOAuthUser = user.getPassword() == null || user.getPassword().isEmpty();
 
         if (!isOAuthUser) {
             // Email/password users must verify current password
-            if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
+            if (!passwordHashingService.matches(oldPassword, user.getPassword())) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Current password is incorrect");
             }
         }
@@ -144,25 +131,14 @@ public class ProfileService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "New password must be at least 6 characters");
         }
 
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         userRepository.save(user);
     }
-    public boolean isOAuthUser(String email) {
-    User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-    return user.getPassword() == null || user.getPassword().isEmpty();
-}
-    private void deleteOldProfilePicture(String profilePictureUrl) {
-        try {
-            if (profilePictureUrl.startsWith("/uploads/profiles/")) {
-                String filename = profilePictureUrl.substring("/uploads/profiles/".length());
-                Path filePath = Paths.get("uploads/profiles/").resolve(filename);
-                Files.deleteIfExists(filePath);
-            }
-        } catch (IOException e) {
-            System.err.println("Failed to delete old profile picture: " + e.getMessage());
-        }
+    // By id and uncached: the entity is about to be modified, and the users cache hands out shared instances
+    private User load(AuthenticatedUser currentUser) {
+        return userRepository.findById(currentUser.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
     }
 
     private ProfileDTO convertToDTO(User user) {
@@ -0,0 +1,40 @@
+package com.lostfound.service;
+
+import java.util.Map;
+
+/**
+ * Delivery SPI for push notifications. NotificationService decides what to send and when;
+ * implementations only deliver one message to one device token.
+ */
+public interface PushProvider {
+
+    /**
+     * @throws InvalidTokenException if the provider reports the token as no longer registered
+     */
+    void send(String deviceToken, PushNotification notification) throws Exception;
+
+    /**
+     * The app was uninstalled or the token expired; it should not be used again.
+     */
+    class InvalidTokenException extends Exception {
+        public InvalidTokenException(String message) {
+            super(message);
+        }
+    }
+
+    class PushNotification {
+        private final String title;
+        private final String body;
+        private final Map<String, String> data;
+
+        public PushNotification(String title, String body, Map<String, String> data) {
+            this.title = title;
+            this.body = body;
+            this.data = data;
+        }
+
+        public String getTitle() { return title; }
+        public String getBody() { return body; }
+        public Map<String, String> getData() { return data; }
+    }
+}
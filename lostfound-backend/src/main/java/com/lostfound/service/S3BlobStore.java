@@ -0,0 +1,133 @@
+package com.lostfound.service;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Blob store on any S3-compatible object store (AWS S3, MinIO, R2...). Blobs are served straight
+ * from storage.s3.public-url (bucket website, CDN or proxy), not through the application.
+ */
+public class S3BlobStore implements BlobStore {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final Duration TOUCH_AFTER = Duration.ofHours(1);
+
+    private final S3Client client;
+    private final String bucket;
+    private final String publicUrl;
+    private final Path spoolDir = Paths.get(System.getProperty("java.io.tmpdir"), "lostfound-uploads");
+
+    public S3BlobStore(S3Client client, String bucket, String publicUrl) {
+        this.client = client;
+        this.bucket = bucket;
+        this.publicUrl = publicUrl.endsWith("/") ? publicUrl : publicUrl + "/";
+    }
+
+    @Override
+    public String put(String namespace, InputStream content, String extension) throws IOException {
+        // Spool first: the key depends on the content hash, and S3 needs the length up front
+        Spooled spooled = BlobStore.spool(content, spoolDir);
+        try {
+            String key = BlobStore.keyOf(namespace, spooled.getSha256(), extension);
+            Instant stored = lastModified(key);
+            if (stored == null) {
+                client.putObject(PutObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .contentType(URLConnection.guessContentTypeFromName(key))
+                                .cacheControl(CACHE_CONTROL)
+                                .build(),
+                        RequestBody.fromFile(spooled.getFile()));
+            } else if (stored.isBefore(Instant.now().minus(TOUCH_AFTER))) {
+                // Same bytes already stored; a server-side self-copy refreshes LastModified so
+                // UploadReconciler's grace period covers the new reference as well
+                client.copyObject(CopyObjectRequest.builder()
+                        .sourceBucket(bucket)
+                        .sourceKey(key)
+                        .destinationBucket(bucket)
+                        .destinationKey(key)
+                        .metadataDirective(MetadataDirective.REPLACE)
+                        .contentType(URLConnection.guessContentTypeFromName(key))
+                        .cacheControl(CACHE_CONTROL)
+                        .build());
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(spooled.getFile());
+        }
+    }
+
+    @Override
+    public Instant lastModified(String key) {
+        try {
+            return client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build()).lastModified();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void list(String namespace, BlobVisitor visitor) throws IOException {
+        ListObjectsV2Request request = ListObjectsV2Request.builder().bucket(bucket).prefix(namespace + "/").build();
+        // The paginator fetches further pages (1000 keys each) lazily while we iterate
+        for (S3Object object : client.listObjectsV2Paginator(request).contents()) {
+            visitor.visit(object.key(), object.lastModified());
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        return client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    @Override
+    public <T> T withLocalFile(String key, LocalFileCallback<T> callback) throws Exception {
+        Files.createDirectories(spoolDir);
+        Path file = Files.createTempFile(spoolDir, "blob", BlobStore.extensionOf(key));
+        try {
+            try (InputStream in = open(key)) {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return callback.apply(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return publicUrl + key;
+    }
+
+    @Override
+    public String keyFor(String url) {
+        return url != null && url.startsWith(publicUrl) ? url.substring(publicUrl.length()) : null;
+    }
+}
@@ -0,0 +1,205 @@
+package com.lostfound.service;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns item text into an L2-normalised dense vector, so cosine similarity is a dot product.
+ * With a BERT-style sentence model (e.g. all-MiniLM-L6-v2 exported to ONNX, plus its vocab.txt)
+ * paraphrases land close together. Without one it falls back to feature-hashed words and
+ * character trigrams, which only catches lexical overlap but needs no model file.
+ */
+public class TextEmbedder implements AutoCloseable {
+
+    private static final int MAX_TOKENS = 128;
+    private static final int HASHED_DIMENSIONS = 256;
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final Map<String, Integer> vocab;
+    private final String modelId;
+
+    public TextEmbedder(String modelPath, String vocabPath) throws IOException, OrtException {
+        if (modelPath != null && !modelPath.isEmpty()) {
+            environment = OrtEnvironment.getEnvironment();
+            OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+            options.setIntraOpNumThreads(1);
+            session = environment.createSession(modelPath, options);
+            vocab = new HashMap<>();
+            List<String> lines = Files.readAllLines(Paths.get(vocabPath), StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                vocab.put(lines.get(i), i);
+            }
+            modelId = "onnx:" + Paths.get(modelPath).getFileName();
+        } else {
+            environment = null;
+            session = null;
+            vocab = null;
+            modelId = "hashed-" + HASHED_DIMENSIONS;
+        }
+    }
+
+    /**
+     * Identifies the vector space; stored embeddings from a different model are recomputed.
+     */
+    public String getModelId() {
+        return modelId;
+    }
+
+    public float[] embed(String text) throws OrtException {
+        float[] vector = session != null ? embedWithModel(text) : embedHashed(text);
+        return normalize(vector);
+    }
+
+    private float[] embedWithModel(String text) throws OrtException {
+        List<Integer> ids = tokenize(text);
+        int length = ids.size();
+        long[] inputIds = new long[length];
+        long[] attentionMask = new long[length];
+        for (int i = 0; i < length; i++) {
+            inputIds[i] = ids.get(i);
+            attentionMask[i] = 1;
+        }
+        long[] shape = {1, length};
+
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            inputs.put("input_ids", OnnxTensor.createTensor(environment, LongBuffer.wrap(inputIds), shape));
+            inputs.put("attention_mask", OnnxTensor.createTensor(environment, LongBuffer.wrap(attentionMask), shape));
+            if (session.getInputNames().contains("token_type_ids")) {
+                inputs.put("token_type_ids", OnnxTensor.createTensor(environment, LongBuffer.wrap(new long[length]), shape));
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                Object output = result.get(0).getValue();
+                if (output instanceof float[][] pooled) {
+                    return pooled[0];
+                }
+                // Token embeddings [1][tokens][dim]: mean-pool them into one sentence vector
+                float[][] tokens = ((float[][][]) output)[0];
+                float[] mean = new float[tokens[0].length];
+                for (float[] token : tokens) {
+                    for (int d = 0; d < mean.length; d++) {
+                        mean[d] += token[d] / tokens.length;
+                    }
+                }
+                return mean;
+            }
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    // BERT uncased WordPiece: [CLS] pieces... [SEP], unknown words become [UNK]
+    private List<Integer> tokenize(String text) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(vocab.getOrDefault("[CLS]", 101));
+        int unknown = vocab.getOrDefault("[UNK]", 100);
+
+        for (String word : basicTokens(text)) {
+            List<Integer> pieces = new ArrayList<>();
+            int start = 0;
+            while (start < word.length()) {
+                int end = word.length();
+                Integer piece = null;
+                while (start < end) {
+                    String candidate = (start > 0 ? "##" : "") + word.substring(start, end);
+                    piece = vocab.get(candidate);
+                    if (piece != null) break;
+                    end--;
+                }
+                if (piece == null) {
+                    pieces = List.of(unknown);
+                    break;
+                }
+                pieces.add(piece);
+                start = end;
+            }
+            for (int id : pieces) {
+                if (ids.size() >= MAX_TOKENS - 1) break;
+                ids.add(id);
+            }
+        }
+        ids.add(vocab.getOrDefault("[SEP]", 102));
+        return ids;
+    }
+
+    // Lower-cased, accents stripped, split on whitespace with punctuation as separate tokens
+    private List<String> basicTokens(String text) {
+        String cleaned = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD).replaceAll("\\p{Mn}", "");
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < cleaned.length(); i++) {
+            char c = cleaned.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+                if (!Character.isWhitespace(c)) {
+                    tokens.add(String.valueOf(c));
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private float[] embedHashed(String text) {
+        float[] vector = new float[HASHED_DIMENSIONS];
+        for (String word : basicTokens(text)) {
+            if (!Character.isLetterOrDigit(word.charAt(0))) continue;
+            addFeature(vector, word, 1f);
+            String padded = "#" + word + "#";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                addFeature(vector, padded.substring(i, i + 3), 0.5f);
+            }
+        }
+        return vector;
+    }
+
+    // Signed hashing keeps collisions from always adding up in the same direction
+    private void addFeature(float[] vector, String feature, float weight) {
+        int hash = feature.hashCode();
+        int index = Math.floorMod(hash, vector.length);
+        vector[index] += (hash & 0x80000000) == 0 ? weight : -weight;
+    }
+
+    private float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    @Override
+    public void close() throws OrtException {
+        if (session != null) {
+            session.close();
+        }
+    }
+}
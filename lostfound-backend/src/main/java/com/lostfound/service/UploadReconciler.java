@@ -0,0 +1,164 @@
+package com.lostfound.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deletes uploads nothing points at any more: blobs of deleted items, replaced profile pictures,
+ * uploads whose request failed after storing the file. Every referenced URL is streamed from the
+ * database into a Bloom filter, then the blob store is listed; a blob the filter has never seen
+ * is certainly unreferenced. Candidates are re-checked exactly and deleted in paced batches.
+ * Blobs younger than the grace period are left alone so in-flight uploads are never touched.
+ */
+@Service
+public class UploadReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadReconciler.class);
+
+    private static final int FETCH_SIZE = 1000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // Every column holding an upload URL
+    private static final String REFERENCED_URLS =
+            "SELECT image_url FROM item_images"
+            + " UNION ALL SELECT imageUrl FROM items WHERE imageUrl IS NOT NULL"
+            + " UNION ALL SELECT profile_picture_url FROM users WHERE profile_picture_url IS NOT NULL";
+
+    private static final String REFERENCED_COUNT =
+            "SELECT (SELECT count(*) FROM item_images)"
+            + " + (SELECT count(*) FROM items WHERE imageUrl IS NOT NULL)"
+            + " + (SELECT count(*) FROM users WHERE profile_picture_url IS NOT NULL)";
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private UploadService uploadService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${uploads.gc.enabled:true}")
+    private boolean enabled;
+
+    // Must comfortably exceed the time between storing an upload and committing the row that uses it
+    @Value("${uploads.gc.grace-hours:24}")
+    private long graceHours;
+
+    @Value("${uploads.gc.batch-size:100}")
+    private int batchSize;
+
+    // Pause between delete batches, to keep the disk / object store and database unhurried
+    @Value("${uploads.gc.batch-pause-ms:1000}")
+    private long batchPauseMs;
+
+    @Scheduled(cron = "${uploads.gc.cron:0 30 4 * * *}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Instant cutoff = Instant.now().minus(Duration.ofHours(graceHours));
+            BloomFilter referenced = loadReferencedKeys();
+
+            List<String> batch = new ArrayList<>();
+            long[] counts = new long[2]; // scanned, deleted
+            for (String namespace : UploadService.NAMESPACES) {
+                blobStore.list(namespace, (key, lastModified) -> {
+                    counts[0]++;
+                    if (lastModified.isAfter(cutoff) || referenced.mightContain(key)
+                            || (isVariant(key) && referenced.mightContain(baseKey(key)))) {
+                        return;
+                    }
+                    batch.add(key);
+                    if (batch.size() >= batchSize) {
+                        counts[1] += deleteBatch(batch, cutoff);
+                        batch.clear();
+                        pause();
+                    }
+                });
+            }
+            counts[1] += deleteBatch(batch, cutoff);
+            logger.info("Upload reconciliation scanned {} blobs, deleted {} orphans in {} ms",
+                    counts[0], counts[1], System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.error("Upload reconciliation failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private BloomFilter loadReferencedKeys() {
+        Long expected = jdbcTemplate.queryForObject(REFERENCED_COUNT, Long.class);
+        // Headroom for rows added while we stream
+        BloomFilter filter = new BloomFilter(Math.max(1000, expected != null ? expected * 2 : 0), FALSE_POSITIVE_RATE);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        tx.executeWithoutResult(status -> {
+            JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+            cursor.setFetchSize(FETCH_SIZE);
+            cursor.query(REFERENCED_URLS, (RowCallbackHandler) rs -> {
+                String key = blobStore.keyFor(rs.getString(1));
+                if (key != null) {
+                    filter.add(key);
+                }
+            });
+        });
+        return filter;
+    }
+
+    private long deleteBatch(List<String> keys, Instant cutoff) throws IOException {
+        long deleted = 0;
+        for (String key : keys) {
+            // Exact check: the filter only proves absence at the time it was built. isReferenced
+            // asks the primary, since a delete can't be undone; the bulk scan above may come from a replica
+            boolean referenced = uploadService.isReferenced(blobStore.urlFor(key))
+                    || (isVariant(key) && uploadService.isReferenced(blobStore.urlFor(baseKey(key))));
+            if (referenced) {
+                continue;
+            }
+            // Re-put since the listing (same content uploaded again) refreshes the timestamp
+            Instant lastModified = blobStore.lastModified(key);
+            if (lastModified == null || lastModified.isAfter(cutoff)) {
+                continue;
+            }
+            blobStore.delete(key);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    // Precompressed siblings (photo.svg.br, see UploadServingFilter) live and die with the blob they were made from
+    private static boolean isVariant(String key) {
+        return key.endsWith(".br") || key.endsWith(".gz");
+    }
+
+    private static String baseKey(String key) {
+        return key.substring(0, key.length() - 3);
+    }
+
+    private void pause() throws IOException {
+        try {
+            Thread.sleep(batchPauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.lostfound.service;
+
+import com.lostfound.config.ReplicaRoutingDataSource;
+import com.lostfound.repository.ItemImageRepository;
+import com.lostfound.repository.ItemRepository;
+import com.lostfound.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Uploaded files as the rest of the app sees them: public URLs, as stored on items and users.
+ * Translates to BlobStore keys and, because identical uploads share a blob, only deletes a blob
+ * once nothing references its URL any more and it is older than uploads.gc.grace-hours.
+ */
+@Service
+public class UploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
+
+    public static final String IMAGES = "images";
+    public static final String PROFILES = "profiles";
+
+    // Every namespace uploads are stored under; UploadReconciler lists exactly these
+    public static final List<String> NAMESPACES = List.of(IMAGES, PROFILES);
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ItemImageRepository itemImageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ImageIngestService imageIngestService;
+
+    // Same grace as UploadReconciler: identical bytes uploaded meanwhile share this blob, and the
+    // row referencing them may not be committed yet
+    @Value("${uploads.gc.grace-hours:24}")
+    private long graceHours;
+
+    public static class StoredImage {
+        private final String url;
+        private final long perceptualHash;
+
+        StoredImage(String url, long perceptualHash) {
+            this.url = url;
+            this.perceptualHash = perceptualHash;
+        }
+
+        public String getUrl() { return url; }
+        public long getPerceptualHash() { return perceptualHash; }
+    }
+
+    public StoredImage storeImage(String namespace, MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return storeImage(namespace, in);
+        }
+    }
+
+    /**
+     * Validates and normalises the image (see ImageIngestService) and stores the result; the
+     * stream is not closed. The client's filename plays no part: the extension follows the output.
+     */
+    public StoredImage storeImage(String namespace, InputStream content) throws IOException {
+        ImageIngestService.Ingested image = imageIngestService.ingest(content);
+        String key = blobStore.put(namespace, new ByteArrayInputStream(image.getData()), image.getExtension());
+        return new StoredImage(blobStore.urlFor(key), image.getPerceptualHash());
+    }
+
+    public InputStream open(String url) throws IOException {
+        return blobStore.open(requireKey(url));
+    }
+
+    /**
+     * Whether the blob behind this upload URL is still stored.
+     *
+     * @throws IllegalArgumentException if the URL is not an upload
+     */
+    public boolean exists(String url) throws IOException {
+        return blobStore.lastModified(requireKey(url)) != null;
+    }
+
+    public <T> T withLocalFile(String url, BlobStore.LocalFileCallback<T> callback) throws Exception {
+        return blobStore.withLocalFile(requireKey(url), callback);
+    }
+
+    public void deleteIfUnreferenced(String url) {
+        String key = blobStore.keyFor(url);
+        if (key == null) {
+            return;
+        }
+        if (isReferenced(url)) {
+            return;
+        }
+        try {
+            // Written or re-put within the grace period: leave it to UploadReconciler
+            Instant lastModified = blobStore.lastModified(key);
+            if (lastModified == null || lastModified.isAfter(Instant.now().minus(Duration.ofHours(graceHours)))) {
+                return;
+            }
+            blobStore.delete(key);
+        } catch (Exception e) {
+            logger.warn("Failed to delete upload {}: {}", url, e.getMessage());
+        }
+    }
+
+    /**
+     * Checked on the primary: a reference committed moments ago may not have reached the replica,
+     * and a false negative here deletes a live file.
+     */
+    public boolean isReferenced(String url) {
+        return ReplicaRoutingDataSource.onPrimary(() -> itemImageRepository.existsByImageUrl(url)
+                || itemRepository.existsByImageUrl(url) || userRepository.existsByProfilePictureUrl(url));
+    }
+
+    private String requireKey(String url) {
+        String key = blobStore.keyFor(url);
+        if (key == null) {
+            throw new IllegalArgumentException("Not a stored upload: " + url);
+        }
+        return key;
+    }
+}
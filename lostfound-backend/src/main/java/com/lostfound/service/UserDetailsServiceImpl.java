@@ -57,17 +57,17 @@
 // }
 package com.lostfound.service;
 
+import com.lostfound.config.AuthenticatedUser;
+import com.lostfound.config.CacheConfig;
 import com.lostfound.model.User;
 import com.lostfound.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
@@ -76,7 +76,10 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    // Hit on every authenticated request by the JWT filter. Only the immutable, credential-free
+    // principal is cached; UserCacheEvictor drops it when the user row changes
     @Override
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#email")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         logger.info("Loading user by email: {}", email);
 
@@ -88,23 +91,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         logger.info("User found: {}, role: {}", user.getEmail(), user.getRole());
 
-        String roleName = (user.getRole() != null) ? user.getRole().name() : "USER";
-
-        // OAuth users (Google/Microsoft) have no password set.
-        // We use a placeholder so Spring Security doesn't reject the UserDetails object.
-        // JWT-based auth never checks this password — it only validates the JWT signature.
-        String password = (user.getPassword() != null && !user.getPassword().isEmpty())
-                ? user.getPassword()
-                : "{noop}OAUTH_USER_NO_PASSWORD";
-
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail())
-                .password(password)
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + roleName)))
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(false)
-                .build();
+        // Becomes the request principal: id, email and role travel with the request from here on
+        return new AuthenticatedUser(user);
     }
 }
\ No newline at end of file
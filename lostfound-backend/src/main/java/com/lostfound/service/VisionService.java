@@ -1,51 +1,23 @@
 package com.lostfound.service;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import com.lostfound.dto.VisionResponse.Color;
+import com.lostfound.dto.VisionResponse.ColorInfo;
+import com.lostfound.dto.VisionResponse.EntityAnnotation;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
-import java.util.Base64;
 
 @Service
 public class VisionService {
 
-    @Value("${google.cloud.vision.api-key:}")
-    private String apiKey;
-
-    // Category mapping based on common labels
-    private static final Map<String, String> CATEGORY_MAPPING = Map.ofEntries(
-        Map.entry("phone", "Electronics"),
-        Map.entry("mobile", "Electronics"),
-        Map.entry("smartphone", "Electronics"),
-        Map.entry("laptop", "Electronics"),
-        Map.entry("computer", "Electronics"),
-        Map.entry("tablet", "Electronics"),
-        Map.entry("wallet", "Accessories"),
-        Map.entry("purse", "Accessories"),
-        Map.entry("key", "Keys"),
-        Map.entry("keys", "Keys"),
-        Map.entry("card", "Accessories"),
-        Map.entry("book", "Books"),
-        Map.entry("books", "Books"),
-        Map.entry("notebook", "Books"),
-        Map.entry("shirt", "Clothing"),
-        Map.entry("jacket", "Clothing"),
-        Map.entry("clothing", "Clothing"),
-        Map.entry("bag", "Bags"),
-        Map.entry("backpack", "Bags"),
-        Map.entry("headphones", "Electronics"),
-        Map.entry("earbuds", "Electronics"),
-        Map.entry("watch", "Accessories"),
-        Map.entry("glasses", "Accessories"),
-        Map.entry("sunglasses", "Accessories"),
-        Map.entry("umbrella", "Accessories"),
-        Map.entry("charger", "Electronics"),
-        Map.entry("cable", "Electronics")
-    );
+    // Cloud Vision when an API key is set, the in-process analyzer otherwise (see ImageAnalyzerConfig)
+    @Autowired
+    private ImageAnalyzer imageAnalyzer;
+
+    // Label/filename -> category, compiled from category-keywords.txt
+    @Autowired
+    private CategoryClassifier categoryClassifier;
 
     // Brand detection patterns
     private static final Set<String> KNOWN_BRANDS = Set.of(
@@ -66,153 +38,149 @@ public class VisionService {
         "pattern", "stripes", "plaid", "solid"
     );
 
+    // Reference RGB values used to name Vision's dominant colors
+    private static final Map<String, int[]> COLOR_PALETTE = new LinkedHashMap<>();
+    static {
+        COLOR_PALETTE.put("black", new int[]{0, 0, 0});
+        COLOR_PALETTE.put("white", new int[]{255, 255, 255});
+        COLOR_PALETTE.put("gray", new int[]{128, 128, 128});
+        COLOR_PALETTE.put("silver", new int[]{192, 192, 192});
+        COLOR_PALETTE.put("red", new int[]{200, 30, 30});
+        COLOR_PALETTE.put("maroon", new int[]{128, 0, 0});
+        COLOR_PALETTE.put("pink", new int[]{255, 170, 190});
+        COLOR_PALETTE.put("orange", new int[]{255, 140, 0});
+        COLOR_PALETTE.put("yellow", new int[]{240, 220, 40});
+        COLOR_PALETTE.put("gold", new int[]{212, 175, 55});
+        COLOR_PALETTE.put("beige", new int[]{225, 210, 175});
+        COLOR_PALETTE.put("brown", new int[]{120, 75, 40});
+        COLOR_PALETTE.put("green", new int[]{40, 150, 60});
+        COLOR_PALETTE.put("teal", new int[]{0, 128, 128});
+        COLOR_PALETTE.put("blue", new int[]{30, 90, 220});
+        COLOR_PALETTE.put("navy", new int[]{20, 30, 90});
+        COLOR_PALETTE.put("purple", new int[]{120, 50, 160});
+    }
+
+    // Dominant colors below this share of the image are ignored
+    private static final float MIN_COLOR_SCORE = 0.1f;
+    private static final int MAX_COLORS = 3;
+
     /**
-     * Phase 1: Enhanced image analysis returning comprehensive AI analysis results
+     * Phase 1: Enhanced image analysis returning comprehensive AI analysis results.
+     * For interactive callers: if the analyzer fails, answers with the filename-based fallback.
      */
     public EnhancedAnalysisResult analyzeImageEnhanced(String imagePath) {
-        EnhancedAnalysisResult result = new EnhancedAnalysisResult();
-        
         try {
-            // Use Vision API for label detection
-            List<Map<String, Object>> labels = analyzeImageWithVisionAPIEnhanced(imagePath);
-            
-            if (labels != null && !labels.isEmpty()) {
-                // Extract category from top label
-                String detectedCategory = mapLabelsToCategoryEnhanced(labels);
-                result.setCategory(detectedCategory);
-                
-                // Extract confidence from top result
-                double confidence = 0.0;
-                Object scoreObj = labels.get(0).get("score");
-                if (scoreObj != null) {
-                    confidence = ((Number) scoreObj).doubleValue() * 100;
-                }
-                result.setConfidenceScore(confidence);
-                
-                // Extract colors from labels
-                List<String> colors = extractColors(labels);
-                result.setDetectedColors(String.join(", ", colors));
-                
-                // Extract brands from labels
-                List<String> brands = extractBrands(labels);
-                result.setDetectedBrands(String.join(", ", brands));
-                
-                // Extract all labels for matching
-                List<String> allLabels = new ArrayList<>();
-                for (Map<String, Object> label : labels) {
-                    String desc = (String) label.get("description");
-                    if (desc != null) {
-                        allLabels.add(desc.toLowerCase());
-                    }
-                }
-                result.setLabels(allLabels);
-            } else {
-                // Fallback analysis
-                result = fallbackEnhancedAnalysis(imagePath);
-            }
+            return analyzeImageOrThrow(imagePath);
         } catch (Exception e) {
             System.err.println("Error in enhanced image analysis: " + e.getMessage());
-            result = fallbackEnhancedAnalysis(imagePath);
+            return fallbackEnhancedAnalysis(imagePath);
         }
-        
-        return result;
     }
 
     /**
-     * Enhanced Vision API call with more features
+     * Same analysis, but analyzer failures (timeouts, open breaker, full bulkhead) propagate, so the
+     * outbox can retry the event instead of storing a fallback result as if it were the real one.
      */
-    @SuppressWarnings("unchecked")
-    private List<Map<String, Object>> analyzeImageWithVisionAPIEnhanced(String imagePath) throws Exception {
-        if (apiKey == null || apiKey.isEmpty()) {
-            throw new Exception("Google Cloud Vision API key not configured");
-        }
+    public EnhancedAnalysisResult analyzeImageOrThrow(String imagePath) throws Exception {
+        EnhancedAnalysisResult result = new EnhancedAnalysisResult();
 
-        byte[] imageBytes = Files.readAllBytes(Paths.get(imagePath));
-        String base64Image = Base64.getEncoder().encodeToString(imageBytes);
-
-        String url = "https://vision.googleapis.com/v1/images:annotate?key=" + apiKey;
-
-        // Request multiple features: labels and text (for brand detection)
-        Map<String, Object> requestBody = Map.of(
-            "requests", List.of(
-                Map.of(
-                    "image", Map.of("content", base64Image),
-                    "features", List.of(
-                        Map.of("type", "LABEL_DETECTION", "maxResults", 15),
-                        Map.of("type", "TEXT_DETECTION", "maxResults", 5),
-                        Map.of("type", "IMAGE_PROPERTIES", "maxResults", 5)
-                    )
-                )
-            )
-        );
-
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-        ResponseEntity<Map> response = restTemplate.postForEntity(url, entity, Map.class);
-
-        if (response.getStatusCode() != HttpStatus.OK) {
-            throw new Exception("Vision API request failed with status: " + response.getStatusCode());
+        // Labels and dominant colors from the configured analyzer
+        ImageAnalyzer.Analysis analysis = imageAnalyzer.analyze(imagePath);
+        List<EntityAnnotation> labels = analysis.getLabels();
+        
+        if (!labels.isEmpty()) {
+            // Extract category from top label
+            String detectedCategory = mapLabelsToCategoryEnhanced(labels);
+            result.setCategory(detectedCategory);
+            
+            // Extract confidence from top result
+            Float score = labels.get(0).score();
+            result.setConfidenceScore(score != null ? score * 100.0 : 0.0);
+            
+            // Dominant colors from the image, falling back to color words in the labels
+            List<String> colors = extractDominantColors(analysis.getDominantColors());
+            if (colors.isEmpty()) {
+                colors = extractColors(labels);
+            }
+            result.setDetectedColors(String.join(", ", colors));
+            
+            // Extract brands from labels
+            List<String> brands = extractBrands(labels);
+            result.setDetectedBrands(String.join(", ", brands));
+            
+            // Extract all labels for matching
+            result.setLabels(descriptionsOf(labels));
+        } else {
+            // Fallback analysis, keeping any colors the analyzer did find (no local model)
+            result = fallbackEnhancedAnalysis(imagePath);
+            List<String> colors = extractDominantColors(analysis.getDominantColors());
+            if (!colors.isEmpty()) {
+                result.setDetectedColors(String.join(", ", colors));
+            }
         }
 
-        Map responseBody = response.getBody();
-        List<Map> responses = (List<Map>) responseBody.get("responses");
-        if (responses == null || responses.isEmpty()) {
-            throw new Exception("No responses from Vision API");
-        }
+        return result;
+    }
 
-        Map firstResponse = responses.get(0);
-        if (firstResponse.containsKey("error")) {
-            throw new Exception("Vision API error: " + firstResponse.get("error"));
+    private List<String> descriptionsOf(List<EntityAnnotation> labels) {
+        List<String> result = new ArrayList<>(labels.size());
+        for (EntityAnnotation label : labels) {
+            result.add(label.description().toLowerCase());
         }
+        return result;
+    }
 
-        // Extract label annotations
-        List<Map<String, Object>> labelAnnotations = (List<Map<String, Object>>) firstResponse.get("labelAnnotations");
-        
-        // Also check for text annotations (brand names, etc.)
-        Map<String, Object> textAnnotation = (Map<String, Object>) firstResponse.get("textAnnotations");
-        if (textAnnotation != null) {
-            List<Map<String, Object>> textAnnotations = (List<Map<String, Object>>) textAnnotation.get("text");
-            if (textAnnotations != null && !textAnnotations.isEmpty()) {
-                // Add detected text as labels for brand detection
-                for (Map<String, Object> text : textAnnotations) {
-                    if (labelAnnotations == null) {
-                        labelAnnotations = new ArrayList<>();
-                    }
-                    labelAnnotations.add(Map.of(
-                        "description", ((String) text.get("description")).toLowerCase(),
-                        "score", 0.9
-                    ));
-                }
+    private String mapLabelsToCategoryEnhanced(List<EntityAnnotation> labels) {
+        return categoryClassifier.classify(labels);
+    }
+
+    /**
+     * Names the dominant colors the analyzer reports by their nearest palette entry, highest score first.
+     */
+    private List<String> extractDominantColors(List<ColorInfo> dominantColors) {
+        List<String> colors = new ArrayList<>();
+        List<ColorInfo> dominant = new ArrayList<>(dominantColors);
+        dominant.sort(Comparator.comparingDouble((ColorInfo c) -> c.score() != null ? c.score() : 0f).reversed());
+        for (ColorInfo info : dominant) {
+            if (info.color() == null || (info.score() != null && info.score() < MIN_COLOR_SCORE)) {
+                continue;
+            }
+            String name = capitalizeFirst(nearestColorName(info.color()));
+            if (!colors.contains(name)) {
+                colors.add(name);
+            }
+            if (colors.size() == MAX_COLORS) {
+                break;
             }
         }
-
-        return labelAnnotations != null ? labelAnnotations : new ArrayList<>();
+        return colors;
     }
 
-    private String mapLabelsToCategoryEnhanced(List<Map<String, Object>> labels) {
-        for (Map<String, Object> label : labels) {
-            String description = ((String) label.get("description")).toLowerCase();
-            String category = CATEGORY_MAPPING.get(description);
-            if (category != null) {
-                return category;
-            }
-            // Check for partial matches
-            for (Map.Entry<String, String> entry : CATEGORY_MAPPING.entrySet()) {
-                if (description.contains(entry.getKey()) || entry.getKey().contains(description)) {
-                    return entry.getValue();
-                }
+    private String nearestColorName(Color color) {
+        float r = channel(color.red());
+        float g = channel(color.green());
+        float b = channel(color.blue());
+        String nearest = null;
+        double best = Double.MAX_VALUE;
+        for (Map.Entry<String, int[]> entry : COLOR_PALETTE.entrySet()) {
+            int[] rgb = entry.getValue();
+            double distance = (r - rgb[0]) * (r - rgb[0]) + (g - rgb[1]) * (g - rgb[1]) + (b - rgb[2]) * (b - rgb[2]);
+            if (distance < best) {
+                best = distance;
+                nearest = entry.getKey();
             }
         }
-        return "Other";
+        return nearest;
+    }
+
+    private float channel(Float value) {
+        return value != null ? value : 0f;
     }
 
-    private List<String> extractColors(List<Map<String, Object>> labels) {
+    private List<String> extractColors(List<EntityAnnotation> labels) {
         List<String> colors = new ArrayList<>();
-        for (Map<String, Object> label : labels) {
-            String description = ((String) label.get("description")).toLowerCase();
+        for (EntityAnnotation label : labels) {
+            String description = label.description().toLowerCase();
             if (COLOR_NAMES.contains(description)) {
                 colors.add(capitalizeFirst(description));
             }
@@ -220,10 +188,10 @@ public class VisionService {
         return colors.isEmpty() ? List.of("Unknown") : colors;
     }
 
-    private List<String> extractBrands(List<Map<String, Object>> labels) {
+    private List<String> extractBrands(List<EntityAnnotation> labels) {
         List<String> brands = new ArrayList<>();
-        for (Map<String, Object> label : labels) {
-            String description = ((String) label.get("description")).toLowerCase();
+        for (EntityAnnotation label : labels) {
+            String description = label.description().toLowerCase();
             if (KNOWN_BRANDS.contains(description)) {
                 brands.add(capitalizeFirst(description));
             }
@@ -244,13 +212,7 @@ public class VisionService {
         String fileName = imagePath.toLowerCase();
         
         // Detect category from filename
-        String detectedCategory = "Other";
-        for (Map.Entry<String, String> entry : CATEGORY_MAPPING.entrySet()) {
-            if (fileName.contains(entry.getKey())) {
-                detectedCategory = entry.getValue();
-                break;
-            }
-        }
+        String detectedCategory = categoryClassifier.classify(fileName);
         result.setCategory(detectedCategory);
         result.setConfidenceScore(50.0);
         result.setDetectedColors("Unknown");
@@ -260,73 +222,54 @@ public class VisionService {
         return result;
     }
 
-    // Google Cloud Vision API: Analyze image and detect category
+    // Analyze image and detect category
     public String analyzeImageAndDetectCategory(String imagePath) {
         try {
-            List<Map<String, Object>> labels = analyzeImageWithVisionAPIEnhanced(imagePath);
+            List<EntityAnnotation> labels = imageAnalyzer.analyze(imagePath).getLabels();
             return mapLabelsToCategoryEnhanced(labels);
         } catch (Exception e) {
-            System.err.println("Error analyzing image with Vision API: " + e.getMessage());
+            System.err.println("Error analyzing image: " + e.getMessage());
             return fallbackCategoryDetection(imagePath);
         }
     }
 
-    // Google Cloud Vision API: Extract AI labels from image analysis
+    // Extract AI labels from image analysis
     public List<String> analyzeImageAndExtractLabels(String imagePath) {
         try {
-            List<Map<String, Object>> labels = analyzeImageWithVisionAPIEnhanced(imagePath);
-            List<String> result = new ArrayList<>();
-            for (Map<String, Object> label : labels) {
-                String desc = (String) label.get("description");
-                if (desc != null) {
-                    result.add(desc.toLowerCase());
-                }
-            }
-            return result;
+            return descriptionsOf(imageAnalyzer.analyze(imagePath).getLabels());
         } catch (Exception e) {
-            System.err.println("Error extracting labels with Vision API: " + e.getMessage());
+            System.err.println("Error extracting labels: " + e.getMessage());
             return fallbackLabelExtraction(imagePath);
         }
     }
 
     private String fallbackCategoryDetection(String imagePath) {
-        String fileName = imagePath.toLowerCase();
-        for (Map.Entry<String, String> entry : CATEGORY_MAPPING.entrySet()) {
-            if (fileName.contains(entry.getKey())) {
-                return entry.getValue();
-            }
-        }
-        return "Other";
+        return categoryClassifier.classify(imagePath);
     }
 
     private List<String> fallbackLabelExtraction(String imagePath) {
         String fileName = imagePath.toLowerCase();
         List<String> labels = new ArrayList<>(Arrays.asList("object", "item"));
 
-        for (Map.Entry<String, String> entry : CATEGORY_MAPPING.entrySet()) {
-            if (fileName.contains(entry.getKey())) {
-                switch (entry.getValue()) {
-                    case "Electronics":
-                        labels.addAll(Arrays.asList("electronics", "device", "technology"));
-                        break;
-                    case "Accessories":
-                        labels.addAll(Arrays.asList("accessory", "personal item"));
-                        break;
-                    case "Keys":
-                        labels.addAll(Arrays.asList("metal", "lock", "access"));
-                        break;
-                    case "Books":
-                        labels.addAll(Arrays.asList("paper", "reading", "education"));
-                        break;
-                    case "Clothing":
-                        labels.addAll(Arrays.asList("fabric", "wear", "apparel"));
-                        break;
-                    case "Bags":
-                        labels.addAll(Arrays.asList("container", "storage", "carrier"));
-                        break;
-                }
+        switch (categoryClassifier.classify(fileName)) {
+            case "Electronics":
+                labels.addAll(Arrays.asList("electronics", "device", "technology"));
+                break;
+            case "Accessories":
+                labels.addAll(Arrays.asList("accessory", "personal item"));
+                break;
+            case "Keys":
+                labels.addAll(Arrays.asList("metal", "lock", "access"));
+                break;
+            case "Books":
+                labels.addAll(Arrays.asList("paper", "reading", "education"));
+                break;
+            case "Clothing":
+                labels.addAll(Arrays.asList("fabric", "wear", "apparel"));
+                break;
+            case "Bags":
+                labels.addAll(Arrays.asList("container", "storage", "carrier"));
                 break;
-            }
         }
         return labels;
     }
@@ -0,0 +1,54 @@
+-- ============================================================
+-- PostgreSQL Migration Script - Initial schema
+-- Matches the tables Hibernate created before Flyway was enabled.
+-- Existing databases are baselined at version 1 (spring.flyway.baseline-on-migrate),
+-- so this script only runs on a fresh database.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255),
+    email VARCHAR(255) NOT NULL UNIQUE,
+    email_verified BOOLEAN DEFAULT FALSE,
+    password VARCHAR(255),
+    role VARCHAR(255),
+    firebaseUid VARCHAR(255),
+    fcmToken VARCHAR(255),
+    profile_picture_url VARCHAR(255),
+    phone_number VARCHAR(255),
+    year_of_study VARCHAR(255),
+    university_id VARCHAR(255) UNIQUE,
+    department VARCHAR(255),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    id BIGSERIAL PRIMARY KEY,
+    title VARCHAR(255),
+    category VARCHAR(255),
+    status VARCHAR(255),
+    location VARCHAR(255),
+    date TIMESTAMP(6),
+    imageUrl TEXT,
+    description VARCHAR(255),
+    contactInfo VARCHAR(255),
+    user_id BIGINT REFERENCES users(id),
+    aiMatched BOOLEAN NOT NULL DEFAULT FALSE,
+    matchedItemId BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS item_ai_labels (
+    item_id BIGINT NOT NULL REFERENCES items(id),
+    label VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS messages (
+    id BIGSERIAL PRIMARY KEY,
+    sender_id BIGINT REFERENCES users(id),
+    receiver_id BIGINT REFERENCES users(id),
+    item_id BIGINT REFERENCES items(id),
+    content TEXT,
+    created_at TIMESTAMP(6),
+    "read" BOOLEAN NOT NULL DEFAULT FALSE
+);
@@ -0,0 +1,51 @@
+-- ============================================================
+-- PostgreSQL Migration Script - Range partition messages by month
+-- messages is rebuilt as a table partitioned on created_at so that
+-- conversation queries bounded by created_at only touch recent months.
+-- Future partitions are created by MessagePartitionService.
+-- ============================================================
+
+ALTER TABLE messages RENAME TO messages_unpartitioned;
+
+-- Partition key must be part of the primary key; created_at is always set by Message.onCreate()
+CREATE TABLE messages (
+    id BIGSERIAL,
+    sender_id BIGINT REFERENCES users(id),
+    receiver_id BIGINT REFERENCES users(id),
+    item_id BIGINT REFERENCES items(id),
+    content TEXT,
+    created_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    "read" BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Catch-all for rows outside every monthly partition (e.g. clock skew)
+CREATE TABLE IF NOT EXISTS messages_default PARTITION OF messages DEFAULT;
+
+-- One partition per month from the oldest existing message up to three months ahead
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM messages_unpartitioned), now()))::date;
+    last_month DATE := (date_trunc('month', now()) + INTERVAL '3 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+                       'messages_' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO messages (id, sender_id, receiver_id, item_id, content, created_at, "read")
+SELECT id, sender_id, receiver_id, item_id, content, COALESCE(created_at, CURRENT_TIMESTAMP), "read"
+FROM messages_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('messages', 'id'), COALESCE((SELECT MAX(id) FROM messages), 0) + 1, false);
+
+DROP TABLE messages_unpartitioned;
+
+-- Indexes are created on every partition automatically
+CREATE INDEX IF NOT EXISTS idx_messages_sender_receiver ON messages(sender_id, receiver_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_messages_receiver ON messages(receiver_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_messages_item ON messages(item_id);
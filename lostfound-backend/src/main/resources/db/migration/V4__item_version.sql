@@ -0,0 +1,7 @@
+-- ============================================================
+-- PostgreSQL Migration Script - Optimistic locking version for items
+-- Backs Item.version, which also serves as the per-item ETag
+-- ============================================================
+
+ALTER TABLE items
+ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
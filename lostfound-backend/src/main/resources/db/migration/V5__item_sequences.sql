@@ -0,0 +1,12 @@
+-- ============================================================
+-- PostgreSQL Migration Script - Sequence ids for items and item_images
+-- IDENTITY ids force one INSERT round-trip per entity and disable JDBC batching.
+-- Hibernate now allocates ids from these sequences in blocks of 50 (pooled-lo),
+-- so each sequence starts just above the current max id.
+-- ============================================================
+
+CREATE SEQUENCE IF NOT EXISTS items_seq INCREMENT BY 50;
+SELECT setval('items_seq', COALESCE((SELECT MAX(id) FROM items), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS item_images_seq INCREMENT BY 50;
+SELECT setval('item_images_seq', COALESCE((SELECT MAX(id) FROM item_images), 0) + 1, false);
@@ -0,0 +1,8 @@
+-- ============================================================
+-- PostgreSQL Migration Script - Sequence ids for messages
+-- Same pooled-lo scheme as V5: Hibernate takes blocks of 50 ids,
+-- so the sequence starts just above the current max id.
+-- ============================================================
+
+CREATE SEQUENCE IF NOT EXISTS messages_seq INCREMENT BY 50;
+SELECT setval('messages_seq', COALESCE((SELECT MAX(id) FROM messages), 0) + 1, false);
@@ -0,0 +1,20 @@
+-- ============================================================
+-- PostgreSQL Migration Script - Transactional outbox
+-- Side effects of item writes (Vision analysis, matching) are recorded here in the
+-- same transaction as the item and drained by OutboxWorker on any node.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT
+);
+
+-- Workers only ever look at due, pending rows
+CREATE INDEX IF NOT EXISTS idx_outbox_pending ON outbox_events(available_at, id) WHERE status = 'PENDING';
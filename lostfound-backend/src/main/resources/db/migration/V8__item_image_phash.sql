@@ -0,0 +1,7 @@
+-- ============================================================
+-- PostgreSQL Migration Script - Perceptual hash per item image
+-- 64-bit dHash computed at upload; compared by Hamming distance in ImageHashService
+-- ============================================================
+
+ALTER TABLE item_images
+ADD COLUMN IF NOT EXISTS phash BIGINT;
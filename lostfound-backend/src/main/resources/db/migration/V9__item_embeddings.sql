@@ -0,0 +1,12 @@
+-- ============================================================
+-- PostgreSQL Migration Script - Dense text embeddings per item
+-- Vectors are little-endian float32; model identifies the vector space so a
+-- model change triggers recomputation instead of mixing incompatible vectors.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS item_embeddings (
+    item_id BIGINT PRIMARY KEY REFERENCES items(id) ON DELETE CASCADE,
+    model VARCHAR(200) NOT NULL,
+    vector BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,169 @@
+package com.lostfound.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Load behaviour of the connection limiter against a stub pool whose connections are held until
+ * released or for a fixed time: how many are open at once, who waits, who is shed, and that primary and replica
+ * limiters (see DataSourceConfig.connectionLimiter) don't take permits from each other.
+ */
+class ConnectionLimitingDataSourceTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(400);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        callers.shutdownNow();
+        callers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void burstNeverExceedsThePoolAndShedsBeyondTheWaitingCap() throws Exception {
+        StubPool pool = new StubPool();
+        // Acquire timeout well beyond the test, so no waiter gives up while the holders are parked
+        ConnectionLimitingDataSource limiter = new ConnectionLimitingDataSource(pool, 10, 100, 60_000);
+
+        // Holders keep their connection until released, so the burst settles into a fixed state
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger shed = new AtomicInteger();
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            results.add(callers.submit(() -> {
+                boolean served = use(limiter, release);
+                if (!served) {
+                    shed.incrementAndGet();
+                }
+                return served;
+            }));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while ((shed.get() < 290 || pool.open.get() < 10 || limiter.getWaiting() < 100) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // 10 hold the connections, exactly 100 wait for one, the other 290 were refused at once
+        assertThat(pool.open.get()).isEqualTo(10);
+        assertThat(limiter.getWaiting()).isEqualTo(100);
+        assertThat(shed.get()).isEqualTo(290);
+        assertThat(limiter.isSaturated(100)).isTrue();
+
+        release.countDown();
+        int served = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                served++;
+            }
+        }
+        assertThat(served).isEqualTo(110);
+        assertThat(shed.get()).isEqualTo(290);
+        assertThat(pool.peak.get()).isEqualTo(10);
+        assertThat(pool.open.get()).isZero();
+        assertThat(limiter.getWaiting()).isZero();
+    }
+
+    @Test
+    void waitersGiveUpAfterTheAcquireTimeout() throws Exception {
+        ConnectionLimitingDataSource limiter = new ConnectionLimitingDataSource(new StubPool(), 1, 10, 100);
+        Connection held = limiter.getConnection();
+        try {
+            long started = System.nanoTime();
+            assertThatThrownBy(limiter::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isBetween(90L, 2000L);
+        } finally {
+            held.close();
+        }
+        // The permit comes back with the connection
+        limiter.getConnection().close();
+    }
+
+    @Test
+    void saturatedReplicaLeavesThePrimaryAlone() throws Exception {
+        ConnectionLimitingDataSource primary = new ConnectionLimitingDataSource(new StubPool(), 5, 50, 2000);
+        ConnectionLimitingDataSource replica = new ConnectionLimitingDataSource(new StubPool(), 5, 50, 2000);
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> reads = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            reads.add(callers.submit(() -> {
+                start.await();
+                return use(replica, 200);
+            }));
+        }
+        start.countDown();
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertThat(replica.isSaturated(10)).isTrue();
+
+        // Writes still get a primary connection straight away
+        long started = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertThat(use(primary, 1)).isTrue();
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(100);
+        assertThat(primary.isSaturated(1)).isFalse();
+
+        for (Future<Boolean> read : reads) {
+            read.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    // Takes a connection, holds it until released; false if the limiter shed the call
+    private static boolean use(ConnectionLimitingDataSource limiter, CountDownLatch release) throws InterruptedException {
+        try (Connection connection = limiter.getConnection()) {
+            release.await();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Takes a connection, holds it for holdMs; false if the limiter shed the call
+    private static boolean use(ConnectionLimitingDataSource limiter, long holdMs) throws InterruptedException {
+        try (Connection connection = limiter.getConnection()) {
+            TimeUnit.MILLISECONDS.sleep(holdMs);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Hands out connections that do nothing but count themselves
+    private static class StubPool extends AbstractDataSource {
+        final AtomicInteger open = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        public Connection getConnection() {
+            peak.accumulateAndGet(open.incrementAndGet(), Math::max);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("close")) {
+                            open.decrementAndGet();
+                        }
+                        return null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.lostfound.config;
+
+import com.lostfound.model.User;
+import com.lostfound.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routing through JPA with an EntityManager that spans several transactions, as open-in-view gives
+ * every request. Runs against the compose replica:
+ * docker compose --profile replica up db db-replica, then run mvn test with SPRING_DATASOURCE_URL=
+ * jdbc:postgresql://localhost:5432/lostfound, DB_REPLICA_URL=jdbc:postgresql://localhost:5433/lostfound
+ * and SPRING_DATASOURCE_USERNAME/PASSWORD=postgres. Skipped without DB_REPLICA_URL.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DataSourceConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "DB_REPLICA_URL", matches = ".+")
+class ReplicaRoutingOpenInViewTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void eachTransactionInARequestRoutesOnItsOwnFlag() {
+        inView(em -> {
+            assertThat(inRecovery(em, true)).as("read-only goes to the replica").isTrue();
+            assertThat(inRecovery(em, false)).as("read-write goes to the primary").isFalse();
+            assertThat(inRecovery(em, true)).as("and the next read-only back to the replica").isTrue();
+        });
+    }
+
+    // The shape of createItem/deleteItem: a read-only lookup, then a write in the same request
+    @Test
+    void writeAfterReadOnlyLookupGoesToPrimary() {
+        String email = "osiv-" + UUID.randomUUID() + "@example.com";
+        try {
+            inView(em -> {
+                assertThat(userRepository.findById(-1L)).isEmpty();
+                User user = new User();
+                user.setName("OSIV routing");
+                user.setEmail(email);
+                // On the replica's connection this fails with "cannot execute INSERT in a read-only transaction"
+                userRepository.save(user);
+            });
+            assertThat(ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByEmail(email))).isPresent();
+        } finally {
+            ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByEmail(email)).ifPresent(userRepository::delete);
+        }
+    }
+
+    // What OpenEntityManagerInViewInterceptor does around a request
+    private void inView(Consumer<EntityManager> request) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(em));
+        try {
+            request.accept(em);
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            EntityManagerFactoryUtils.closeEntityManager(em);
+        }
+    }
+
+    private boolean inRecovery(EntityManager em, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> (Boolean) em.createNativeQuery("SELECT pg_is_in_recovery()").getSingleResult());
+    }
+}
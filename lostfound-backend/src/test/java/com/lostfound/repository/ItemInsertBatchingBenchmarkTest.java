@@ -0,0 +1,135 @@
+package com.lostfound.repository;
+
+import com.lostfound.model.Item;
+import com.lostfound.model.ItemImage;
+import com.lostfound.model.Status;
+import com.lostfound.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements sent for createItem's shape (one item, five images, three AI labels, one transaction)
+ * with the pooled-lo sequences and JDBC batching from application.properties, against the same
+ * inserts with batching switched off for the session. The unbatched count is also what IDENTITY ids
+ * cost, since IDENTITY forces each item and image insert out on its own.
+ */
+@Testcontainers
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ItemInsertBatchingBenchmarkTest {
+
+    private static final int IMAGES = 5;
+    private static final int LABELS = 3;
+    private static final int ITEMS = 200;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+
+    @BeforeEach
+    void createOwner() {
+        User user = new User();
+        user.setName("Batching benchmark");
+        user.setEmail("batching-" + UUID.randomUUID() + "@example.com");
+        owner = userRepository.save(user);
+    }
+
+    @Test
+    void batchingSendsOneStatementPerTableInsteadOfOnePerRow() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Warm up both paths, and take the first block of ids from each sequence
+        createItems(5, null);
+        createItems(5, 1);
+
+        statistics.clear();
+        long started = System.nanoTime();
+        createItems(ITEMS, null);
+        long batchedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        double batched = statistics.getPrepareStatementCount() / (double) ITEMS;
+
+        statistics.clear();
+        started = System.nanoTime();
+        createItems(ITEMS, 1);
+        long unbatchedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        double unbatched = statistics.getPrepareStatementCount() / (double) ITEMS;
+
+        System.out.printf("Item + %d images + %d labels, %d items: batched %.2f statements/item (%d ms), "
+                + "unbatched %.2f statements/item (%d ms)%n", IMAGES, LABELS, ITEMS, batched, batchedMs, unbatched, unbatchedMs);
+        // Item, image batch, label batch, plus a sequence call every 50 items and every 10 items' images
+        assertThat(batched).isLessThan(3.5);
+        assertThat(unbatched).isGreaterThanOrEqualTo(1 + IMAGES + LABELS);
+    }
+
+    // Each item in its own transaction, as createItem does; a batch size of 1 turns batching off
+    private void createItems(int count, Integer jdbcBatchSize) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int n = 0; n < count; n++) {
+            transaction.executeWithoutResult(status -> {
+                if (jdbcBatchSize != null) {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+                }
+                Item item = new Item();
+                item.setTitle("Blue backpack");
+                item.setCategory("Bags");
+                item.setStatus(Status.LOST);
+                item.setLocation("Library");
+                item.setDate(LocalDateTime.now());
+                item.setUser(owner);
+                item.setAiLabels(new ArrayList<>(List.of("backpack", "bag", "blue").subList(0, LABELS)));
+                List<ItemImage> images = new ArrayList<>();
+                for (int i = 0; i < IMAGES; i++) {
+                    images.add(new ItemImage(item, "/uploads/images/" + UUID.randomUUID() + ".jpg", i == 0, i));
+                }
+                item.setImageUrl(images.get(0).getImageUrl());
+                item.setImages(images);
+                entityManager.persist(item);
+            });
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.lostfound.service;
+
+import com.lostfound.config.VisionClientConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CloudVisionAnalyzer with the client, circuit breaker and bulkhead built by VisionClientConfig,
+ * against a local stub of images:annotate: a slow endpoint is cut off by the read timeout, repeated
+ * failures open the breaker so later calls never reach the endpoint, and calls beyond the bulkhead
+ * are refused without counting as Vision failures.
+ */
+class CloudVisionAnalyzerTest {
+
+    private static final String LABELS = """
+            {"responses":[{"labelAnnotations":[{"description":"Backpack","score":0.93}],
+              "textAnnotations":[{"description":"NIKE"},{"description":"NIKE"}]}]}""";
+
+    private interface Responder {
+        void respond(HttpExchange exchange) throws Exception;
+    }
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private volatile Responder responder;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private Path image;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/v1/images:annotate", exchange -> {
+            requests.incrementAndGet();
+            try {
+                responder.respond(exchange);
+            } catch (Exception e) {
+                // The client gave up first (timeout); nothing left to answer
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        image = Files.write(tempDir.resolve("item.jpg"), new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0});
+    }
+
+    @AfterEach
+    void stopStub() throws InterruptedException {
+        callers.shutdownNow();
+        callers.awaitTermination(10, TimeUnit.SECONDS);
+        server.stop(0);
+    }
+
+    @Test
+    void parsesLabelsAndPrintedWords() throws Exception {
+        responder = exchange -> reply(exchange, 200, LABELS);
+        ImageAnalyzer.Analysis analysis = analyzer(config()).analyze(image.toString());
+
+        assertThat(analysis.getLabels()).extracting(label -> label.description())
+                .containsExactly("Backpack", "nike");
+    }
+
+    @Test
+    void slowEndpointIsCutOffByTheReadTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        responder = exchange -> {
+            release.await(10, TimeUnit.SECONDS);
+            reply(exchange, 200, LABELS);
+        };
+        VisionClientConfig config = config();
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 300L);
+        CircuitBreaker breaker = config.visionCircuitBreaker();
+        CloudVisionAnalyzer analyzer = analyzer(config, breaker, config.visionBulkhead());
+
+        long started = System.nanoTime();
+        try {
+            assertThatThrownBy(() -> analyzer.analyze(image.toString())).isInstanceOf(ResourceAccessException.class);
+        } finally {
+            release.countDown();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(elapsedMs).isBetween(250L, 5000L);
+        // A timeout is a Vision failure as far as the breaker is concerned
+        assertThat(breaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedFailuresOpenTheBreakerAndLaterCallsFailFast() {
+        responder = exchange -> reply(exchange, 500, "{\"error\":{\"code\":500,\"message\":\"backend\"}}");
+        VisionClientConfig config = config();
+        ReflectionTestUtils.setField(config, "slidingWindowSize", 4);
+        CircuitBreaker breaker = config.visionCircuitBreaker();
+        CloudVisionAnalyzer analyzer = analyzer(config, breaker, config.visionBulkhead());
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> analyzer.analyze(image.toString())).isNotInstanceOf(CallNotPermittedException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        responder = exchange -> reply(exchange, 200, LABELS);
+        assertThatThrownBy(() -> analyzer.analyze(image.toString())).isInstanceOf(CallNotPermittedException.class);
+        assertThat(requests.get()).isEqualTo(4);
+    }
+
+    @Test
+    void callsBeyondTheBulkheadAreRefusedWithoutTrippingTheBreaker() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        responder = exchange -> {
+            inFlight.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            reply(exchange, 200, LABELS);
+        };
+        VisionClientConfig config = config();
+        ReflectionTestUtils.setField(config, "maxConcurrentCalls", 2);
+        ReflectionTestUtils.setField(config, "maxWaitMs", 50L);
+        CircuitBreaker breaker = config.visionCircuitBreaker();
+        CloudVisionAnalyzer analyzer = analyzer(config, breaker, config.visionBulkhead());
+
+        Future<ImageAnalyzer.Analysis> first = callers.submit(() -> analyzer.analyze(image.toString()));
+        Future<ImageAnalyzer.Analysis> second = callers.submit(() -> analyzer.analyze(image.toString()));
+        try {
+            assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(analyzer.isSaturated()).isTrue();
+            assertThatThrownBy(() -> analyzer.analyze(image.toString())).isInstanceOf(BulkheadFullException.class);
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getLabels()).isNotEmpty();
+        assertThat(second.get(5, TimeUnit.SECONDS).getLabels()).isNotEmpty();
+        assertThat(analyzer.isSaturated()).isFalse();
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(breaker.getMetrics().getNumberOfFailedCalls()).isZero();
+        assertThat(breaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(2);
+    }
+
+    // The defaults from VisionClientConfig's @Value annotations; tests override what they exercise
+    private static VisionClientConfig config() {
+        VisionClientConfig config = new VisionClientConfig();
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 10000L);
+        ReflectionTestUtils.setField(config, "failureRateThreshold", 50f);
+        ReflectionTestUtils.setField(config, "slidingWindowSize", 20);
+        ReflectionTestUtils.setField(config, "openSeconds", 30L);
+        ReflectionTestUtils.setField(config, "maxConcurrentCalls", 8);
+        ReflectionTestUtils.setField(config, "maxWaitMs", 500L);
+        return config;
+    }
+
+    private CloudVisionAnalyzer analyzer(VisionClientConfig config) {
+        return analyzer(config, config.visionCircuitBreaker(), config.visionBulkhead());
+    }
+
+    private CloudVisionAnalyzer analyzer(VisionClientConfig config, CircuitBreaker breaker, Bulkhead bulkhead) {
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+        return new CloudVisionAnalyzer(config.visionRestTemplate(), breaker, bulkhead, endpoint, "test-key");
+    }
+
+    private static void reply(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
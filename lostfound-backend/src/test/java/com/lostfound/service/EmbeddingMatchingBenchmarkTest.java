@@ -0,0 +1,237 @@
+package com.lostfound.service;
+
+import com.lostfound.model.Item;
+import com.lostfound.model.Status;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recall and latency of the embedding signal against the keyword matcher (ItemService.keywordsOf)
+ * and of HnswIndex against an exact scan. Uses the hashed-trigram embedder unless
+ * MATCHING_EMBEDDING_MODEL_PATH / MATCHING_EMBEDDING_VOCAB_PATH point at an ONNX sentence model,
+ * which is what the paraphrase pairs are really for. Results are printed; only the index's recall
+ * against the exact scan is asserted, since the matcher comparison depends on the model.
+ */
+class EmbeddingMatchingBenchmarkTest {
+
+    // LOST text, the FOUND report it should be matched with
+    private static final String[][] PAIRS = {
+            {"Lost my iPhone 13 near the library", "Found an iphone with a blue case at the library entrance"},
+            {"Black leather billfold with student ID", "Found wallet, black leather, cards inside"},
+            {"Lost car keys on a red lanyard", "Keys found in the cafeteria, red lanyard attached"},
+            {"Grey hoodie left in lecture hall B", "Found a gray sweatshirt with a hood in hall B"},
+            {"Lost AirPods case, white", "Found white wireless earbuds charging case"},
+            {"Missing Dell laptop in a black sleeve", "Laptop found in the computer lab, Dell, black sleeve"},
+            {"Lost reading glasses in a brown case", "Found spectacles in a brown case near the bus stop"},
+            {"Blue water bottle with stickers", "Found a blue flask covered in stickers"},
+            {"Lost my backpack, green, with notebooks", "Found a green rucksack containing notebooks"},
+            {"Lost silver wristwatch at the gym", "Found a silver watch in the gym changing room"},
+            {"Misplaced umbrella, black, folding", "Compact black umbrella found at reception"},
+            {"Lost Samsung phone charger", "Found a USB-C charger, Samsung, in room 204"},
+    };
+
+    private static TextEmbedder embedder;
+
+    @BeforeAll
+    static void createEmbedder() throws Exception {
+        embedder = new TextEmbedder(System.getenv("MATCHING_EMBEDDING_MODEL_PATH"),
+                System.getenv("MATCHING_EMBEDDING_VOCAB_PATH"));
+    }
+
+    @AfterAll
+    static void closeEmbedder() throws Exception {
+        embedder.close();
+    }
+
+    @Test
+    void embeddingVersusKeywordMatching() throws Exception {
+        List<Item> found = new ArrayList<>();
+        HnswIndex index = null;
+        for (int i = 0; i < PAIRS.length; i++) {
+            Item item = item(1000L + i, PAIRS[i][1], Status.FOUND);
+            found.add(item);
+            float[] vector = embedder.embed(EmbeddingService.textOf(item));
+            if (index == null) {
+                index = new HnswIndex(vector.length);
+            }
+            index.add(item.getId(), vector);
+        }
+
+        int keywordHits = 0;
+        int embeddingHits = 0;
+        long keywordNanos = 0;
+        long embeddingNanos = 0;
+        for (int i = 0; i < PAIRS.length; i++) {
+            Item lost = item((long) i, PAIRS[i][0], Status.LOST);
+            long expected = 1000L + i;
+
+            long started = System.nanoTime();
+            Long keywordMatch = keywordMatch(lost, found);
+            keywordNanos += System.nanoTime() - started;
+            if (keywordMatch != null && keywordMatch == expected) {
+                keywordHits++;
+            }
+
+            started = System.nanoTime();
+            List<HnswIndex.Result> results = index.search(embedder.embed(EmbeddingService.textOf(lost)), 1, 64);
+            embeddingNanos += System.nanoTime() - started;
+            if (!results.isEmpty() && results.get(0).key == expected) {
+                embeddingHits++;
+            }
+        }
+
+        System.out.printf("Matcher recall@1 over %d pairs (%s): keywords %.2f (%.3f ms/query), embeddings %.2f (%.3f ms/query, incl. embedding)%n",
+                PAIRS.length, embedder.getModelId(),
+                (double) keywordHits / PAIRS.length, keywordNanos / 1e6 / PAIRS.length,
+                (double) embeddingHits / PAIRS.length, embeddingNanos / 1e6 / PAIRS.length);
+        assertThat(embeddingHits).isPositive();
+    }
+
+    // Clustered like real sentence embeddings (MiniLM-sized); uniformly random vectors are a
+    // worst case no ANN index does well on and say little about item text
+    @Test
+    void indexRecallAndLatencyAgainstExactScan() {
+        int dimensions = 384;
+        int count = 10_000;
+        int queries = 200;
+        int k = 5;
+        Random random = new Random(42);
+        float[][] centres = new float[500][];
+        for (int i = 0; i < centres.length; i++) {
+            centres[i] = randomUnitVector(random, dimensions);
+        }
+        float[][] vectors = new float[count][];
+        HnswIndex index = new HnswIndex(dimensions);
+        long buildStarted = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            vectors[i] = clusteredVector(random, centres);
+            index.add(i, vectors[i]);
+        }
+        long buildMs = (System.nanoTime() - buildStarted) / 1_000_000;
+
+        long[] indexNanos = new long[queries];
+        long[] scanNanos = new long[queries];
+        int hits = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = clusteredVector(random, centres);
+
+            long started = System.nanoTime();
+            List<HnswIndex.Result> approximate = index.search(query, k, 64);
+            indexNanos[q] = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            int[] exact = exactTopK(vectors, query, k);
+            scanNanos[q] = System.nanoTime() - started;
+
+            for (HnswIndex.Result result : approximate) {
+                for (int id : exact) {
+                    if (result.key == id) {
+                        hits++;
+                    }
+                }
+            }
+        }
+        double recall = (double) hits / (queries * k);
+
+        System.out.printf("HNSW over %d x %d-d (built in %d ms): recall@%d %.3f, p50 %.3f ms, p99 %.3f ms; exact scan p50 %.3f ms, p99 %.3f ms%n",
+                count, dimensions, buildMs, k, recall,
+                percentileMs(indexNanos, 50), percentileMs(indexNanos, 99),
+                percentileMs(scanNanos, 50), percentileMs(scanNanos, 99));
+        assertThat(recall).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void unchangedVectorLeavesNoTombstone() {
+        HnswIndex index = new HnswIndex(8);
+        float[] vector = randomUnitVector(new Random(7), 8);
+        index.add(1, vector);
+
+        assertThat(index.contains(1, vector)).isTrue();
+        assertThat(index.contains(1, randomUnitVector(new Random(8), 8))).isFalse();
+        index.add(1, randomUnitVector(new Random(8), 8));
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.tombstones()).isEqualTo(1);
+    }
+
+    // What ItemService.findMatch does with keywords: the first report of the other status sharing one
+    private static Long keywordMatch(Item lost, List<Item> found) {
+        List<String> keywords = ItemService.keywordsOf(lost);
+        for (Item candidate : found) {
+            if (ItemService.keywordsOf(candidate).stream().anyMatch(keywords::contains)) {
+                return candidate.getId();
+            }
+        }
+        return null;
+    }
+
+    private static Item item(Long id, String text, Status status) {
+        Item item = new Item();
+        item.setId(id);
+        item.setTitle(text);
+        item.setDescription("");
+        item.setStatus(status);
+        return item;
+    }
+
+    private static int[] exactTopK(float[][] vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> -dot(vectors[i], query)))
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] randomUnitVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        float norm = 0;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        norm = (float) Math.sqrt(norm);
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] /= norm;
+        }
+        return vector;
+    }
+
+    private static float[] clusteredVector(Random random, float[][] centres) {
+        float[] centre = centres[random.nextInt(centres.length)];
+        float[] noise = randomUnitVector(random, centre.length);
+        float[] vector = new float[centre.length];
+        float norm = 0;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = centre[i] + 0.6f * noise[i];
+            norm += vector[i] * vector[i];
+        }
+        norm = (float) Math.sqrt(norm);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= norm;
+        }
+        return vector;
+    }
+
+    private static double percentileMs(long[] nanos, int percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1e6;
+    }
+}
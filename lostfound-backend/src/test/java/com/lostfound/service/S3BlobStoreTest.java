@@ -0,0 +1,124 @@
+package com.lostfound.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * S3BlobStore against a real S3 API (MinIO in a container), configured the way StorageConfig
+ * builds the client for storage.s3.endpoint + path-style.
+ */
+@Testcontainers
+class S3BlobStoreTest {
+
+    private static final String BUCKET = "lostfound-test";
+    private static final String PUBLIC_URL = "https://cdn.example.com/uploads";
+
+    @Container
+    private static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2023-09-04T19-57-37Z");
+
+    private static S3Client client;
+    private static S3BlobStore store;
+
+    @BeforeAll
+    static void createBucket() {
+        client = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .endpointOverride(URI.create(MINIO.getS3URL()))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(MINIO.getUserName(), MINIO.getPassword())))
+                .build();
+        client.createBucket(b -> b.bucket(BUCKET));
+        store = new S3BlobStore(client, BUCKET, PUBLIC_URL);
+    }
+
+    @Test
+    void identicalContentSharesOneKey() throws Exception {
+        String first = store.put(UploadService.IMAGES, stream("same bytes"), ".jpg");
+        String second = store.put(UploadService.IMAGES, stream("same bytes"), ".jpg");
+        String other = store.put(UploadService.IMAGES, stream("other bytes"), ".jpg");
+
+        assertThat(first).isEqualTo(second).startsWith("images/").endsWith(".jpg");
+        assertThat(other).isNotEqualTo(first);
+        try (InputStream in = store.open(first)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("same bytes");
+        }
+    }
+
+    @Test
+    void listOnlyVisitsTheNamespace() throws Exception {
+        String image = store.put(UploadService.IMAGES, stream("listed image"), ".png");
+        String profile = store.put(UploadService.PROFILES, stream("listed profile"), ".png");
+        // Something else sharing the bucket, which the reconciler must never see
+        client.putObject(PutObjectRequest.builder().bucket(BUCKET).key("backups/db.dump").build(),
+                RequestBody.fromString("not ours"));
+
+        List<String> images = new ArrayList<>();
+        store.list(UploadService.IMAGES, (key, lastModified) -> {
+            assertThat(lastModified).isNotNull();
+            images.add(key);
+        });
+        List<String> profiles = new ArrayList<>();
+        store.list(UploadService.PROFILES, (key, lastModified) -> profiles.add(key));
+
+        assertThat(images).contains(image).allMatch(key -> key.startsWith("images/"));
+        assertThat(profiles).contains(profile).allMatch(key -> key.startsWith("profiles/"));
+    }
+
+    @Test
+    void deleteAndLastModified() throws Exception {
+        String key = store.put(UploadService.IMAGES, stream("to delete"), ".jpg");
+        assertThat(store.lastModified(key)).isNotNull();
+
+        store.delete(key);
+
+        assertThat(store.lastModified(key)).isNull();
+        assertThat(store.lastModified("images/00/00/missing.jpg")).isNull();
+    }
+
+    @Test
+    void withLocalFileCopiesAndCleansUp() throws Exception {
+        String key = store.put(UploadService.IMAGES, stream("local copy"), ".jpg");
+        Path[] seen = new Path[1];
+
+        String content = store.withLocalFile(key, file -> {
+            seen[0] = file;
+            return Files.readString(file);
+        });
+
+        assertThat(content).isEqualTo("local copy");
+        assertThat(seen[0]).doesNotExist();
+    }
+
+    @Test
+    void urlsRoundTrip() {
+        String key = "images/ab/cd/abcd.jpg";
+        assertThat(store.urlFor(key)).isEqualTo(PUBLIC_URL + "/" + key);
+        assertThat(store.keyFor(store.urlFor(key))).isEqualTo(key);
+        assertThat(store.keyFor("https://elsewhere.example.com/" + key)).isNull();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}